@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import org.eclipse.images.renderer.IconAtlas.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Compares loading all icons of an icon root from single PNG files with
+ * loading them from its atlas: reading the binary index, decoding the pages
+ * and cutting out every icon.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AtlasBenchmark {
+
+	@Param({ "org.eclipse.ui", "org.eclipse.jdt.ui" })
+	public String iconRoot;
+
+	private List<File> files;
+
+	private File atlasDir;
+
+	private int pageCount;
+
+	@Setup
+	public void setUp() throws IOException {
+		Path root = new File(Fixtures.getPngDirectory(), iconRoot).toPath();
+		try (Stream<Path> paths = Files.walk(root)) {
+			files = paths.filter(path -> path.toString().endsWith(".png")).map(Path::toFile).sorted().toList();
+		}
+
+		SortedMap<String, BufferedImage> images = new TreeMap<>();
+		for (File file : files) {
+			images.put(root.relativize(file.toPath()).toString(), ImageIO.read(file));
+		}
+
+		IconAtlas atlas = IconAtlas.pack(images);
+		PngEncoder encoder = new PngEncoder(Deflater.BEST_COMPRESSION, PngEncoder.Strategy.standard,
+				PngEncoder.Filter.adaptive);
+
+		atlasDir = new File("target/atlas-benchmark/" + iconRoot);
+		atlasDir.mkdirs();
+		pageCount = atlas.getPages().size();
+		for (int i = 0; i < pageCount; i++) {
+			Files.write(new File(atlasDir, "atlas-" + i + ".png").toPath(), encoder.encode(atlas.getPages().get(i)));
+		}
+
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		atlas.writeBinary(index);
+		Files.write(new File(atlasDir, "index.bin").toPath(), index.toByteArray());
+	}
+
+	@Benchmark
+	public List<BufferedImage> loadFiles() throws IOException {
+		List<BufferedImage> images = new ArrayList<>(files.size());
+		for (File file : files) {
+			images.add(ImageIO.read(file));
+		}
+		return images;
+	}
+
+	@Benchmark
+	public Map<String, BufferedImage> loadAtlas() throws IOException {
+		List<Region> regions;
+		try (InputStream in = new ByteArrayInputStream(Files.readAllBytes(new File(atlasDir, "index.bin").toPath()))) {
+			regions = IconAtlas.readBinary(in);
+		}
+
+		BufferedImage[] pages = new BufferedImage[pageCount];
+		for (int i = 0; i < pageCount; i++) {
+			pages[i] = ImageIO.read(new File(atlasDir, "atlas-" + i + ".png"));
+		}
+
+		Map<String, BufferedImage> images = new HashMap<>(regions.size() * 2);
+		for (Region region : regions) {
+			images.put(region.path(),
+					pages[region.page()].getSubimage(region.x(), region.y(), region.width(), region.height()));
+		}
+		return images;
+	}
+}
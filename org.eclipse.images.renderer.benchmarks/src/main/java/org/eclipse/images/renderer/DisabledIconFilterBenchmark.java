@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jhlabs.image.ContrastFilter;
+import com.jhlabs.image.GrayscaleFilter;
+import com.jhlabs.image.HSBAdjustFilter;
+
+/**
+ * <p>
+ * Compares {@link DisabledIconFilter} with the jhlabs filter chain it
+ * replaced. That both produce the same pixels is checked by
+ * <code>DisabledIconFilterTest</code> in the renderer module.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisabledIconFilterBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	@Param({ "1", "2" })
+	public double scale;
+
+	private BufferedImage source;
+
+	private BufferedImage work;
+
+	@Setup
+	public void setUp() throws Exception {
+		source = Fixtures.render(Fixtures.getIcon(icon), scale);
+		work = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * The chain used by the render mojo before, creating the filters and three
+	 * images for every icon.
+	 */
+	@Benchmark
+	public BufferedImage jhlabsChain() {
+		return filterWithJhlabs(source);
+	}
+
+	/**
+	 * The fused filter, including the copy of the source pixels since it works
+	 * in place.
+	 */
+	@Benchmark
+	public BufferedImage disabledIconFilter() {
+		System.arraycopy(pixels(source), 0, pixels(work), 0, pixels(source).length);
+		DisabledIconFilter.filter(work);
+		return work;
+	}
+
+	private static BufferedImage filterWithJhlabs(BufferedImage image) {
+		GrayscaleFilter grayFilter = new GrayscaleFilter();
+
+		HSBAdjustFilter desaturator = new HSBAdjustFilter();
+		desaturator.setSFactor(0.0f);
+
+		ContrastFilter decontrast = new ContrastFilter();
+		decontrast.setBrightness(DisabledIconFilter.BRIGHTNESS);
+		decontrast.setContrast(DisabledIconFilter.CONTRAST);
+
+		return decontrast.filter(desaturator.filter(grayFilter.filter(image, null), null), null);
+	}
+
+	private static int[] pixels(BufferedImage image) {
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+	}
+}
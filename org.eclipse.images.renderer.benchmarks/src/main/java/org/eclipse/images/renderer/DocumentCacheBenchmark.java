@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * <p>
+ * Measures creating an icon's document from a document cache hit, from the
+ * cached bytes in memory and from the cache directory, against parsing the
+ * SVG source with the <code>SAXSVGDocumentFactory</code>. All use the
+ * thread's pooled render context.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentCacheBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	private String uri;
+
+	private byte[] svgBytes;
+
+	private byte[] cachedBytes;
+
+	private Path cacheDir;
+
+	private DocumentCache cache;
+
+	private String key;
+
+	@Setup
+	public void setUp() throws IOException {
+		IconEntry iconEntry = Fixtures.getIcon(icon);
+		uri = "file://" + iconEntry.nameBase + ".svg";
+		svgBytes = Fixtures.readSource(iconEntry);
+
+		SVGDocument document = RenderContext.acquire(true).parse(uri, new ByteArrayInputStream(svgBytes));
+		cachedBytes = DocumentCache.encode(document);
+
+		cacheDir = Files.createTempDirectory("svg-cache");
+		cache = new DocumentCache(cacheDir.toFile());
+		key = DocumentCache.computeKey(svgBytes);
+		cache.store(key, document);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(cacheDir)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Benchmark
+	public SVGDocument sax() throws IOException {
+		return RenderContext.acquire(true).parse(uri, new ByteArrayInputStream(svgBytes));
+	}
+
+	@Benchmark
+	public SVGDocument cachedBytes() throws IOException {
+		return DocumentCache.decode(cachedBytes, RenderContext.acquire(true), uri);
+	}
+
+	@Benchmark
+	public SVGDocument cachedFile() throws IOException {
+		return cache.load(RenderContext.acquire(true), key, uri);
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.w3c.dom.Element;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * <p>
+ * Icons of the <code>org.eclipse.images</code> repository the benchmarks run
+ * on, and helpers to bring them into the state the renderer sees them in.
+ * </p>
+ * <p>
+ * The SVG sources are taken from <code>../org.eclipse.images/eclipse-svg</code>,
+ * another directory can be specified with the
+ * <code>eclipse.svg.benchmark.sourcedirectory</code> property. Rendered icons
+ * are taken from <code>../org.eclipse.images/eclipse-png</code> or the
+ * directory specified with <code>eclipse.svg.benchmark.pngdirectory</code>.
+ * </p>
+ */
+final class Fixtures {
+
+	/** Used to specify the directory the benchmark icons are taken from. */
+	static final String SOURCE_DIR = "eclipse.svg.benchmark.sourcedirectory";
+
+	/** Used to specify the directory the rendered benchmark icons are taken from. */
+	static final String PNG_DIR = "eclipse.svg.benchmark.pngdirectory";
+
+	/** A small, typical object icon. */
+	static final String OBJ16 = "obj16";
+
+	/** A large wizard banner. */
+	static final String WIZBAN = "wizban";
+
+	private Fixtures() {
+	}
+
+	/**
+	 * @return the directory containing the icon roots (org.eclipse.ui, etc)
+	 */
+	static File getSourceDirectory() {
+		File sourceDir = new File(System.getProperty(SOURCE_DIR, "../org.eclipse.images/eclipse-svg"));
+		if (!sourceDir.isDirectory()) {
+			throw new IllegalStateException("Icon source directory does not exist: " + sourceDir.getAbsolutePath()
+					+ ", specify it with -D" + SOURCE_DIR);
+		}
+		return sourceDir;
+	}
+
+	/**
+	 * @return the directory containing the rendered icon roots
+	 *         (org.eclipse.ui, etc)
+	 */
+	static File getPngDirectory() {
+		File pngDir = new File(System.getProperty(PNG_DIR, "../org.eclipse.images/eclipse-png"));
+		if (!pngDir.isDirectory()) {
+			throw new IllegalStateException("Rendered icon directory does not exist: " + pngDir.getAbsolutePath()
+					+ ", specify it with -D" + PNG_DIR);
+		}
+		return pngDir;
+	}
+
+	/**
+	 * <p>
+	 * Resolves one of the fixture icons.
+	 * </p>
+	 *
+	 * @param name
+	 *            {@link #OBJ16} or {@link #WIZBAN}
+	 * @return the icon, without output paths
+	 */
+	static IconEntry getIcon(String name) {
+		String iconRoot;
+		String path;
+		switch (name) {
+		case OBJ16:
+			iconRoot = "org.eclipse.jdt.ui";
+			path = "icons/full/obj16/class_obj.svg";
+			break;
+		case WIZBAN:
+			iconRoot = "org.eclipse.ui.ide";
+			path = "icons/full/wizban/importdir_wiz.svg";
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown fixture icon: " + name);
+		}
+
+		File root = new File(getSourceDirectory(), iconRoot);
+		return IconGatherer.createIcon(root, new File(root, path), null, null);
+	}
+
+	/**
+	 * @return a render mojo set up to be used outside of a Maven build
+	 */
+	static RenderMojo createMojo() {
+		RenderMojo mojo = new RenderMojo();
+		mojo.log = new SystemStreamLog();
+		return mojo;
+	}
+
+	/**
+	 * @return the content of the icon's SVG source
+	 * @throws IOException
+	 *             if the source can't be read
+	 */
+	static byte[] readSource(IconEntry icon) throws IOException {
+		return Files.readAllBytes(icon.inputPath.toPath());
+	}
+
+	/**
+	 * <p>
+	 * Parses an icon and builds its GVT tree, like the render mojo does.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to build
+	 * @param scale
+	 *            the scale the viewport is resolved at
+	 * @return the rasterizer of the icon, to be disposed by the caller
+	 * @throws IOException
+	 *             if the icon can't be read or parsed
+	 */
+	static IconRasterizer createRasterizer(IconEntry icon, double scale) throws IOException {
+		RenderMojo mojo = createMojo();
+		RenderContext context = RenderContext.acquire(true);
+		SVGDocument document = mojo.generateSVGDocument(context, icon, readSource(icon));
+		if (document == null) {
+			throw new IOException("Could not parse " + icon.inputPath);
+		}
+
+		Dimension size = getNativeSize(document);
+		Dimension viewport = new Dimension((int) (size.width * scale), (int) (size.height * scale));
+		return new IconRasterizer(context, (SVGOMDocument) document, viewport, null,
+				message -> mojo.log.error(message), message -> mojo.log.warn(message));
+	}
+
+	/**
+	 * <p>
+	 * Renders an icon at the given scale.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to render
+	 * @param scale
+	 *            the scale to render at
+	 * @return the rendered image
+	 * @throws Exception
+	 *             if the icon can't be rendered
+	 */
+	static BufferedImage render(IconEntry icon, double scale) throws Exception {
+		IconRasterizer rasterizer = createRasterizer(icon, scale);
+		try {
+			Dimension size = getOutputSize(icon, scale);
+			return rasterizer.paint(size.width, size.height);
+		} finally {
+			rasterizer.dispose();
+		}
+	}
+
+	/**
+	 * @return the size of the icon rendered at the given scale
+	 * @throws IOException
+	 *             if the icon can't be read or parsed
+	 */
+	static Dimension getOutputSize(IconEntry icon, double scale) throws IOException {
+		SVGDocument document = createMojo().generateSVGDocument(RenderContext.acquire(true), icon, readSource(icon));
+		Dimension size = getNativeSize(document);
+		return new Dimension((int) (size.width * scale), (int) (size.height * scale));
+	}
+
+	private static Dimension getNativeSize(SVGDocument document) {
+		Element root = document.getDocumentElement();
+		String width = root.getAttribute("width");
+		String height = root.getAttribute("height");
+		if (width.isEmpty() || height.isEmpty()) {
+			String[] viewBox = root.getAttribute("viewBox").split(" ");
+			width = viewBox[2];
+			height = viewBox[3];
+		}
+		return new Dimension(Integer.parseInt(width.replace("px", "")), Integer.parseInt(height.replace("px", "")));
+	}
+}
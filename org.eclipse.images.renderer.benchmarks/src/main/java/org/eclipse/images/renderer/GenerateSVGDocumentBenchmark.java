@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * <p>
+ * Measures parsing an icon's SVG source into a Batik document, with the
+ * thread's pooled render context and with a new context per icon.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateSVGDocumentBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	private RenderMojo mojo;
+
+	private IconEntry iconEntry;
+
+	private byte[] svgBytes;
+
+	@Setup
+	public void setUp() throws IOException {
+		mojo = Fixtures.createMojo();
+		iconEntry = Fixtures.getIcon(icon);
+		svgBytes = Fixtures.readSource(iconEntry);
+	}
+
+	@Benchmark
+	public SVGDocument pooled() {
+		return mojo.generateSVGDocument(RenderContext.acquire(true), iconEntry, svgBytes);
+	}
+
+	@Benchmark
+	public SVGDocument unpooled() {
+		return mojo.generateSVGDocument(RenderContext.acquire(false), iconEntry, svgBytes);
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures gathering the icons of the whole <code>eclipse-svg</code> tree, the
+ * way the render mojo does while rendering: one search per icon root on a
+ * pool of threads, every found icon handed to a consumer on the searching
+ * thread.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IconGathererBenchmark {
+
+	private List<File> iconRoots;
+
+	private File outputDir;
+
+	private ExecutorService executor;
+
+	@Setup
+	public void setUp() {
+		iconRoots = new ArrayList<>();
+		for (File file : Fixtures.getSourceDirectory().listFiles()) {
+			if (file.isDirectory()) {
+				iconRoots.add(file);
+			}
+		}
+		outputDir = new File("target/eclipse-png");
+
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), iconRoots.size());
+		executor = Executors.newFixedThreadPool(Math.max(1, threads));
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public Queue<IconEntry> gatherIcons() throws InterruptedException, ExecutionException {
+		Queue<IconEntry> icons = new ConcurrentLinkedQueue<>();
+
+		List<Future<?>> searches = new ArrayList<>(iconRoots.size());
+		for (File iconRoot : iconRoots) {
+			File outputBase = new File(outputDir, iconRoot.getName());
+			searches.add(executor.submit(() -> IconGatherer.gatherIcons(icons::add, "svg", iconRoot, iconRoot,
+					outputBase, true, FolderState.include)));
+		}
+
+		for (Future<?> search : searches) {
+			search.get();
+		}
+		return icons;
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Compares {@link PngEncoder} at a fast and the default compression level
+ * with ImageIO's PNG writer, which the render mojo used before.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PngEncoderBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	@Param({ "1", "2" })
+	public double scale;
+
+	private BufferedImage image;
+
+	private PngEncoder fastEncoder;
+
+	private PngEncoder defaultEncoder;
+
+	@Setup
+	public void setUp() throws Exception {
+		image = Fixtures.render(Fixtures.getIcon(icon), scale);
+		fastEncoder = new PngEncoder(1, PngEncoder.Strategy.standard, PngEncoder.Filter.adaptive);
+		defaultEncoder = new PngEncoder(Deflater.BEST_COMPRESSION, PngEncoder.Strategy.standard,
+				PngEncoder.Filter.adaptive);
+	}
+
+	@Benchmark
+	public byte[] imageIO() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "PNG", out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] pngEncoderFast() throws IOException {
+		return fastEncoder.encode(image);
+	}
+
+	@Benchmark
+	public byte[] pngEncoderDefault() throws IOException {
+		return defaultEncoder.encode(image);
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Measures painting an icon's GVT tree into an image with
+ * {@link RenderMojo#renderIcon}. The tree is built once, like the render mojo
+ * does for all scales of an icon.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderIconBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	@Param({ "1", "1.5", "2" })
+	public double scale;
+
+	private RenderMojo mojo;
+
+	private IconEntry iconEntry;
+
+	private IconRasterizer rasterizer;
+
+	private Dimension size;
+
+	@Setup
+	public void setUp() throws IOException {
+		mojo = Fixtures.createMojo();
+		iconEntry = Fixtures.getIcon(icon);
+		size = Fixtures.getOutputSize(iconEntry, scale);
+		rasterizer = Fixtures.createRasterizer(iconEntry, scale);
+	}
+
+	@TearDown
+	public void tearDown() {
+		rasterizer.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage renderIcon() {
+		return mojo.renderIcon(iconEntry, rasterizer, size.width, size.height);
+	}
+}
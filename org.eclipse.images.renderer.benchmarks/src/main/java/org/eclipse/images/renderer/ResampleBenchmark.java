@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mortennobel.imagescaling.ResampleFilters;
+import com.mortennobel.imagescaling.ResampleOp;
+
+/**
+ * <p>
+ * Measures the Lanczos resampling the gallery mojo applies to every icon,
+ * configured the same way, and the premultiplied resampling the render mojo
+ * derives smaller scales with.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResampleBenchmark {
+
+	@Param({ Fixtures.OBJ16, Fixtures.WIZBAN })
+	public String icon;
+
+	/** The gallery sizes, 16 for the icon galleries and 75 for banners. */
+	@Param({ "16", "75" })
+	public int outputSize;
+
+	private BufferedImage image;
+
+	private ResampleOp resampleOp;
+
+	@Setup
+	public void setUp() throws Exception {
+		image = Fixtures.render(Fixtures.getIcon(icon), 1);
+
+		resampleOp = new ResampleOp(outputSize, outputSize);
+		resampleOp.setFilter(ResampleFilters.getLanczos3Filter());
+		resampleOp.setNumberOfThreads(1);
+	}
+
+	@Benchmark
+	public BufferedImage lanczos() {
+		return resampleOp.filter(image, null);
+	}
+
+	@Benchmark
+	public BufferedImage premultiplied() {
+		return IconResampler.resample(image, outputSize, outputSize);
+	}
+}
@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * <p>
+ * Mojo which compares freshly rendered icons with a baseline tree, usually
+ * the committed PNGs, and reports only the icons that changed: as a JSON list
+ * and as a gallery showing the baseline, the new rendering and the changed
+ * pixels of every changed icon.
+ * </p>
+ */
+@Mojo(name = "compare-icons")
+@Execute(goal = "compare-icons", phase = LifecyclePhase.GENERATE_RESOURCES)
+public class CompareMojo extends AbstractMojo {
+
+	/** Used to specify the directory of the PNGs compared against. */
+	public static final String BASELINE_DIR = "eclipse.svg.baselinedirectory";
+
+	/** Used to specify the directory of the rendered PNGs to compare. */
+	public static final String COMPARE_DIR = "eclipse.svg.comparedirectory";
+
+	/**
+	 * Used to specify the largest difference of a colour or alpha channel
+	 * that is not reported.
+	 */
+	public static final String TOLERANCE = "eclipse.svg.compare.tolerance";
+
+	/** Used to specify whether the build fails if icons changed. */
+	public static final String FAIL_ON_CHANGE = "eclipse.svg.compare.failonchange";
+
+	/** Used to specify the number of threads the icons are compared with. */
+	public static final String COMPARE_THREADS = "eclipse.svg.comparethreads";
+
+	/** Height of the bands the gallery is composed in. */
+	private static final int BAND_HEIGHT = 512;
+
+	/** Largest size an icon is shown at in the gallery, larger ones are clipped. */
+	private static final int MAX_CELL_SIZE = 128;
+
+	/** Maven logger */
+	private Log log;
+
+	/**
+	 * @see AbstractMojo#execute()
+	 */
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		log = getLog();
+
+		// Defaults to "eclipse-png"
+		String baselineDir = "eclipse-png";
+		String baselineDirProp = System.getProperty(BASELINE_DIR);
+		if (baselineDirProp != null) {
+			baselineDir = baselineDirProp;
+		}
+
+		// Defaults to "target/eclipse-png", render there with
+		// eclipse.svg.targetdirectory
+		String compareDir = "target/eclipse-png";
+		String compareDirProp = System.getProperty(COMPARE_DIR);
+		if (compareDirProp != null) {
+			compareDir = compareDirProp;
+		}
+
+		// Defaults to 2, rounding differences between renderers
+		int tolerance = 2;
+		String toleranceProp = System.getProperty(TOLERANCE);
+		if (toleranceProp != null) {
+			try {
+				tolerance = Math.max(0, Integer.parseInt(toleranceProp.trim()));
+			} catch (NumberFormatException e) {
+				log.error("Could not parse compare tolerance, using default.", e);
+			}
+		}
+
+		// Defaults to "false"
+		boolean failOnChange = Boolean.parseBoolean(System.getProperty(FAIL_ON_CHANGE));
+
+		// Defaults to the number of processor cores
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		String threadsProp = System.getProperty(COMPARE_THREADS);
+		if (threadsProp != null) {
+			try {
+				threads = Math.max(1, Integer.parseInt(threadsProp.trim()));
+			} catch (NumberFormatException e) {
+				log.error("Could not parse compare thread count, using default.", e);
+			}
+		}
+
+		File baselineRoot = new File(baselineDir);
+		File compareRoot = new File(compareDir);
+		for (File root : new File[] { baselineRoot, compareRoot }) {
+			if (!root.isDirectory()) {
+				throw new MojoExecutionException("Directory '" + root + "' does not exist.");
+			}
+		}
+
+		long startTime = System.currentTimeMillis();
+		List<IconDiff> diffs;
+		try {
+			diffs = compare(baselineRoot, compareRoot, tolerance, threads);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Error while comparing icons: " + e.getMessage(), e);
+		}
+
+		List<IconDiff> changes = new ArrayList<>();
+		Map<IconDiff.Status, Integer> counts = new EnumMap<>(IconDiff.Status.class);
+		for (IconDiff diff : diffs) {
+			counts.merge(diff.status(), 1, Integer::sum);
+			if (diff.isChanged()) {
+				changes.add(diff);
+			}
+		}
+
+		File outputDir = new File("target/compare/");
+		try {
+			outputDir.mkdirs();
+			writeJson(new File(outputDir, "changes.json"), baselineRoot, compareRoot, tolerance, diffs.size(),
+					counts, changes);
+			writeGallery(new File(outputDir, "changes.png"), baselineRoot, compareRoot, tolerance, changes);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Error while writing the comparison: " + e.getMessage(), e);
+		}
+
+		log.info("Compared " + diffs.size() + " icons in " + (System.currentTimeMillis() - startTime) + " ms on "
+				+ threads + " threads: " + counts);
+		log.info(changes.size() + " changed icons listed in " + new File(outputDir, "changes.json"));
+
+		if (failOnChange && !changes.isEmpty()) {
+			throw new MojoFailureException(changes.size() + " icons differ from " + baselineRoot
+					+ ", see " + new File(outputDir, "changes.png"));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Compares all PNGs of both trees in parallel.
+	 * </p>
+	 *
+	 * @return the differences, ordered by path
+	 */
+	private List<IconDiff> compare(File baselineRoot, File compareRoot, int tolerance, int threads)
+			throws IOException, MojoExecutionException {
+		Set<String> baselineIcons = listIcons(baselineRoot);
+		Set<String> compareIcons = listIcons(compareRoot);
+		Set<String> icons = new TreeSet<>(baselineIcons);
+		icons.addAll(compareIcons);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<IconDiff>> tasks = new ArrayList<>();
+			for (String icon : icons) {
+				File baseline = baselineIcons.contains(icon) ? new File(baselineRoot, icon) : null;
+				File current = compareIcons.contains(icon) ? new File(compareRoot, icon) : null;
+				tasks.add(executor.submit(() -> IconDiff.compare(icon, baseline, current, tolerance)));
+			}
+
+			List<IconDiff> diffs = new ArrayList<>();
+			for (Future<IconDiff> task : tasks) {
+				diffs.add(task.get());
+			}
+			return diffs;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while comparing icons.", e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the paths of all PNGs below a directory, relative to it and
+	 *         with forward slashes
+	 */
+	private static Set<String> listIcons(File root) throws IOException {
+		Set<String> icons = new TreeSet<>();
+		Path rootPath = root.toPath();
+		try (Stream<Path> paths = Files.walk(rootPath)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				if (path.toString().endsWith(".png") && Files.isRegularFile(path)) {
+					icons.add(rootPath.relativize(path).toString().replace(File.separatorChar, '/'));
+				}
+			}
+		}
+		return icons;
+	}
+
+	/**
+	 * <p>
+	 * Writes the summary and the list of changed icons.
+	 * </p>
+	 */
+	private static void writeJson(File file, File baselineRoot, File compareRoot, int tolerance, int compared,
+			Map<IconDiff.Status, Integer> counts, List<IconDiff> changes) throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"baseline\": ").append(RenderReport.quote(baselineRoot.getPath())).append(",\n");
+		json.append("  \"compared\": ").append(RenderReport.quote(compareRoot.getPath())).append(",\n");
+		json.append("  \"tolerance\": ").append(tolerance).append(",\n");
+		json.append("  \"icons\": ").append(compared).append(",\n");
+		for (IconDiff.Status status : IconDiff.Status.values()) {
+			json.append("  \"").append(status).append("\": ").append(counts.getOrDefault(status, 0)).append(",\n");
+		}
+
+		json.append("  \"changes\": [");
+		for (int i = 0; i < changes.size(); i++) {
+			IconDiff diff = changes.get(i);
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    { \"icon\": ").append(RenderReport.quote(diff.icon()));
+			json.append(", \"status\": \"").append(diff.status()).append('"');
+			json.append(", \"changedPixels\": ").append(diff.changedPixels());
+			json.append(", \"maxDelta\": ").append(diff.maxDelta()).append(" }");
+		}
+		json.append(changes.isEmpty() ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+
+		Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * <p>
+	 * Writes a gallery with one row per changed icon: its path, the
+	 * baseline, the new rendering and the changed pixels. The gallery is
+	 * composed and written in bands, the icons are read again for their row.
+	 * </p>
+	 */
+	private void writeGallery(File file, File baselineRoot, File compareRoot, int tolerance,
+			List<IconDiff> changes) throws IOException {
+		int textHeaderHeight = 31;
+		int margin = 6;
+		int leftColumnWidth = 500;
+
+		int cellSize = 16;
+		for (IconDiff diff : changes) {
+			for (File root : new File[] { baselineRoot, compareRoot }) {
+				BufferedImage image = readIcon(root, diff);
+				if (image != null) {
+					cellSize = Math.max(cellSize, Math.max(image.getWidth(), image.getHeight()));
+				}
+			}
+		}
+		cellSize = Math.min(cellSize, MAX_CELL_SIZE);
+
+		// Room for the two lines of text as well
+		int rowHeight = Math.max(cellSize + margin * 2, 40);
+		int width = leftColumnWidth + (cellSize + margin * 2) * 3;
+		int height = textHeaderHeight + changes.size() * rowHeight;
+		int[] columns = { leftColumnWidth + margin, leftColumnWidth + cellSize + margin * 3,
+				leftColumnWidth + cellSize * 2 + margin * 5 };
+
+		int iconsPerBand = Math.max(1, BAND_HEIGHT / rowHeight);
+		BufferedImage band = new BufferedImage(width, Math.min(height, textHeaderHeight + iconsPerBand * rowHeight),
+				BufferedImage.TYPE_INT_ARGB);
+
+		PngEncoder pngEncoder = new PngEncoder(6, PngEncoder.Strategy.standard, PngEncoder.Filter.none);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+				PngEncoder.StripWriter writer = pngEncoder.startStrips(out, width, height)) {
+			// The first band holds the header as well
+			int first = 0;
+			do {
+				int last = Math.min(changes.size(), first + iconsPerBand);
+				int bandTop = first == 0 ? 0 : textHeaderHeight + first * rowHeight;
+				int bandHeight = textHeaderHeight + last * rowHeight - bandTop;
+
+				// Drawing happens in gallery coordinates, clipped to the band
+				Graphics2D g = band.createGraphics();
+				g.translate(0, -bandTop);
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				g.setColor(Color.WHITE);
+				g.fillRect(0, bandTop, width, bandHeight);
+				g.setColor(Color.DARK_GRAY);
+
+				if (first == 0) {
+					g.drawString("Changed icons: " + changes.size() + " (Baseline / New / Changed pixels)", 8, 20);
+				}
+
+				for (int i = first; i < last; i++) {
+					IconDiff diff = changes.get(i);
+					int y = textHeaderHeight + i * rowHeight;
+
+					g.setColor(Color.DARK_GRAY);
+					g.drawLine(0, y, width, y);
+					g.drawString(diff.icon(), 5, y + margin + 12);
+					String details = diff.status().toString();
+					if (diff.status() == IconDiff.Status.changed) {
+						details += ": " + diff.changedPixels() + " pixels, max delta " + diff.maxDelta();
+					}
+					g.drawString(details, 5, y + margin + 26);
+
+					BufferedImage baseline = readIcon(baselineRoot, diff);
+					BufferedImage current = readIcon(compareRoot, diff);
+					g.setClip(0, y, width, rowHeight);
+					if (baseline != null) {
+						g.drawImage(baseline, columns[0], y + margin, null);
+					}
+					if (current != null) {
+						g.drawImage(current, columns[1], y + margin, null);
+					}
+					if (diff.status() == IconDiff.Status.changed) {
+						g.drawImage(IconDiff.createDiffImage(baseline, current, tolerance), columns[2], y + margin,
+								null);
+					}
+					g.setClip(null);
+				}
+
+				g.dispose();
+				writer.write(band, bandHeight);
+				first = last;
+			} while (first < changes.size());
+		}
+	}
+
+	/**
+	 * @return the icon of a difference in one of the trees, or null if it is
+	 *         missing or can't be decoded there
+	 */
+	private BufferedImage readIcon(File root, IconDiff diff) {
+		File file = new File(root, diff.icon());
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try {
+			return ImageIO.read(file);
+		} catch (IOException e) {
+			log.error("Error reading icon: " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,527 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.util.ParsedURL;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * <p>
+ * Keeps the cleaned documents of the icons on disk in a compact binary form,
+ * so an unchanged SVG source doesn't have to be parsed as XML again. Entries
+ * are keyed by the hash of the SVG source and rebuilt into a Batik document
+ * with the same DOM calls the SAX parser makes, without tokenizing the XML.
+ * </p>
+ * <p>
+ * Element and attribute names are stored once per document and interned when
+ * read, all other strings are stored once per document as well. Style
+ * attributes are stored as their declarations, which repeat a lot in icons
+ * exported by Inkscape. Comments are dropped, they are never rendered. The
+ * format is:
+ * </p>
+ *
+ * <pre>
+ * int magic ("EIDC"), int version, name table, value table, varint SVG version,
+ * varint node count, nodes
+ * table:     varint count, count times: varint length, UTF-8 bytes
+ * element:   byte 1, varint namespace, varint name, varint attribute count,
+ *            attributes, varint child count, nodes
+ * attribute: varint namespace, varint name, varint value
+ *            (style: varint declaration count, varint declarations)
+ * text:      byte 3 (4 for CDATA), varint value
+ * PI:        byte 7, varint target, varint data
+ * </pre>
+ *
+ * <p>
+ * Names are indices into the name table, with 0 standing for no namespace,
+ * the other strings are indices into the value table.
+ * </p>
+ */
+class DocumentCache {
+
+	/** First bytes of a cache entry. */
+	static final int MAGIC = 0x45494443;
+
+	/**
+	 * Version of the cache entries, to be changed whenever the format or the
+	 * cleanup of the documents changes.
+	 */
+	static final int VERSION = 1;
+
+	/** The directory the entries are stored in. */
+	private final File directory;
+
+	/** Number of documents read from the cache. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of documents that had to be parsed. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param directory
+	 *            the directory the entries are stored in, created when the
+	 *            first entry is stored
+	 */
+	DocumentCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * <p>
+	 * Computes the key of an SVG source.
+	 * </p>
+	 *
+	 * @param svgBytes
+	 *            the content of the SVG source
+	 * @return the key as a hex string
+	 */
+	static String computeKey(byte[] svgBytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(svgBytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Rebuilds a cached document.
+	 * </p>
+	 *
+	 * @param context
+	 *            the render context of the calling thread
+	 * @param key
+	 *            the key of the SVG source
+	 * @param uri
+	 *            the URI of the document
+	 * @return the document or null if it is not cached
+	 * @throws IOException
+	 *             if the entry could not be read or is damaged, the entry
+	 *             should be stored again
+	 */
+	SVGDocument load(RenderContext context, String key, String uri) throws IOException {
+		byte[] data;
+		try {
+			data = Files.readAllBytes(getEntry(key));
+		} catch (NoSuchFileException e) {
+			misses.increment();
+			return null;
+		}
+
+		try {
+			SVGDocument document = decode(data, context, uri);
+			hits.increment();
+			return document;
+		} catch (IOException e) {
+			misses.increment();
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stores a cleaned document. Safe to call from several threads for the
+	 * same key.
+	 * </p>
+	 *
+	 * @param key
+	 *            the key of the SVG source
+	 * @param document
+	 *            the document, as it is rendered
+	 * @throws IOException
+	 *             if the entry could not be written
+	 */
+	void store(String key, Document document) throws IOException {
+		Path entry = getEntry(key);
+		Files.createDirectories(entry.getParent());
+
+		// Readers only ever see complete entries
+		Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+		try {
+			Files.write(temp, encode(document));
+			Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * @return the number of documents read from the cache
+	 */
+	long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of documents that were not cached
+	 */
+	long getMisses() {
+		return misses.sum();
+	}
+
+	private Path getEntry(String key) {
+		return new File(new File(directory, key.substring(0, 2)), key + ".bin").toPath();
+	}
+
+	/**
+	 * <p>
+	 * Encodes a document into the binary form.
+	 * </p>
+	 *
+	 * @param document
+	 *            the document to encode
+	 * @return the binary form
+	 */
+	static byte[] encode(Document document) {
+		Encoder encoder = new Encoder();
+		List<Node> nodes = new ArrayList<>();
+		for (Node node = document.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (isStored(node)) {
+				nodes.add(node);
+			}
+		}
+
+		// The SVG version selects the DOM implementation
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		Element root = document.getDocumentElement();
+		String svgVersion = root != null && root.hasAttributeNS(null, "version") ? root.getAttributeNS(null, "version")
+				: null;
+		writeVarInt(body, svgVersion == null ? 0 : encoder.value(svgVersion) + 1);
+		writeVarInt(body, nodes.size());
+		for (Node node : nodes) {
+			encoder.writeNode(body, node);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 1024);
+		writeInt(out, MAGIC);
+		writeInt(out, VERSION);
+		writeTable(out, encoder.names);
+		writeTable(out, encoder.values);
+		out.writeBytes(body.toByteArray());
+		return out.toByteArray();
+	}
+
+	/**
+	 * <p>
+	 * Rebuilds a document from its binary form.
+	 * </p>
+	 *
+	 * @param data
+	 *            the binary form
+	 * @param context
+	 *            the render context of the calling thread
+	 * @param uri
+	 *            the URI of the document
+	 * @return the document
+	 * @throws IOException
+	 *             if the data is not a valid cache entry
+	 */
+	static SVGDocument decode(byte[] data, RenderContext context, String uri) throws IOException {
+		try {
+			ByteBuffer in = ByteBuffer.wrap(data);
+			if (in.getInt() != MAGIC) {
+				throw new IOException("Not a cached SVG document");
+			}
+			int version = in.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported cached SVG document version: " + version);
+			}
+
+			String[] names = readTable(in, true);
+			String[] values = readTable(in, false);
+
+			// The same implementation the parser picks for the SVG version
+			int svgVersion = readVarInt(in);
+			SVGOMDocument document = (SVGOMDocument) context.documentFactory
+					.getDOMImplementation(svgVersion == 0 ? null : values[svgVersion - 1])
+					.createDocument(null, null, null);
+			document.setParsedURL(new ParsedURL(uri));
+			document.setDocumentURI(uri);
+
+			Decoder decoder = new Decoder(in, document, names, values);
+			int count = readVarInt(in);
+			for (int i = 0; i < count; i++) {
+				decoder.readNode(document);
+			}
+
+			if (in.hasRemaining()) {
+				throw new IOException("Trailing bytes in cached SVG document");
+			}
+			return document;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | DOMException e) {
+			throw new IOException("Damaged cached SVG document", e);
+		}
+	}
+
+	private static boolean isStored(Node node) {
+		short type = node.getNodeType();
+		return type == Node.ELEMENT_NODE || type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE
+				|| type == Node.PROCESSING_INSTRUCTION_NODE;
+	}
+
+	/**
+	 * Splits a style attribute into its declarations, or returns it as a
+	 * single declaration if splitting at semicolons is not safe.
+	 */
+	private static String[] splitStyle(String style) {
+		if (style.indexOf('"') >= 0 || style.indexOf('\'') >= 0 || style.indexOf('\\') >= 0) {
+			return new String[] { style };
+		}
+
+		List<String> declarations = new ArrayList<>();
+		for (String declaration : style.split(";")) {
+			String trimmed = declaration.trim();
+			if (!trimmed.isEmpty()) {
+				declarations.add(trimmed);
+			}
+		}
+		return declarations.toArray(new String[declarations.size()]);
+	}
+
+	/**
+	 * Writes the nodes of a document and collects the strings they use.
+	 */
+	private static class Encoder {
+
+		final Map<String, Integer> names = new HashMap<>();
+
+		final Map<String, Integer> values = new HashMap<>();
+
+		void writeNode(ByteArrayOutputStream out, Node node) {
+			out.write(node.getNodeType());
+			switch (node.getNodeType()) {
+			case Node.ELEMENT_NODE:
+				writeElement(out, (Element) node);
+				break;
+			case Node.PROCESSING_INSTRUCTION_NODE:
+				ProcessingInstruction pi = (ProcessingInstruction) node;
+				writeVarInt(out, name(pi.getTarget()));
+				writeVarInt(out, value(pi.getData()));
+				break;
+			default:
+				writeVarInt(out, value(node.getNodeValue()));
+			}
+		}
+
+		private void writeElement(ByteArrayOutputStream out, Element element) {
+			writeVarInt(out, namespace(element.getNamespaceURI()));
+			writeVarInt(out, name(element.getNodeName()));
+
+			NamedNodeMap attributes = element.getAttributes();
+			writeVarInt(out, attributes.getLength());
+			for (int i = 0; i < attributes.getLength(); i++) {
+				Attr attribute = (Attr) attributes.item(i);
+				writeVarInt(out, namespace(attribute.getNamespaceURI()));
+				writeVarInt(out, name(attribute.getNodeName()));
+
+				if (isStyle(attribute.getNamespaceURI(), attribute.getNodeName())) {
+					String[] declarations = splitStyle(attribute.getValue());
+					writeVarInt(out, declarations.length);
+					for (String declaration : declarations) {
+						writeVarInt(out, value(declaration));
+					}
+				} else {
+					writeVarInt(out, value(attribute.getValue()));
+				}
+			}
+
+			List<Node> children = new ArrayList<>();
+			for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if (isStored(child)) {
+					children.add(child);
+				}
+			}
+
+			writeVarInt(out, children.size());
+			for (Node child : children) {
+				writeNode(out, child);
+			}
+		}
+
+		private int namespace(String namespace) {
+			return namespace == null ? 0 : name(namespace) + 1;
+		}
+
+		private int name(String name) {
+			return names.computeIfAbsent(name, key -> names.size());
+		}
+
+		int value(String value) {
+			return values.computeIfAbsent(value, key -> values.size());
+		}
+	}
+
+	/**
+	 * Rebuilds the nodes of a document, in the order the SAX parser creates
+	 * them.
+	 */
+	private static class Decoder {
+
+		private final ByteBuffer in;
+
+		private final Document document;
+
+		private final String[] names;
+
+		private final String[] values;
+
+		Decoder(ByteBuffer in, Document document, String[] names, String[] values) {
+			this.in = in;
+			this.document = document;
+			this.names = names;
+			this.values = values;
+		}
+
+		void readNode(Node parent) throws IOException {
+			byte type = in.get();
+			switch (type) {
+			case Node.ELEMENT_NODE:
+				readElement(parent);
+				break;
+			case Node.TEXT_NODE:
+				parent.appendChild(document.createTextNode(values[readVarInt(in)]));
+				break;
+			case Node.CDATA_SECTION_NODE:
+				parent.appendChild(document.createCDATASection(values[readVarInt(in)]));
+				break;
+			case Node.PROCESSING_INSTRUCTION_NODE:
+				String target = names[readVarInt(in)];
+				parent.appendChild(document.createProcessingInstruction(target, values[readVarInt(in)]));
+				break;
+			default:
+				throw new IOException("Unknown node type in cached SVG document: " + type);
+			}
+		}
+
+		private void readElement(Node parent) throws IOException {
+			Element element = document.createElementNS(readNamespace(), names[readVarInt(in)]);
+
+			int attributeCount = readVarInt(in);
+			for (int i = 0; i < attributeCount; i++) {
+				String namespace = readNamespace();
+				String name = names[readVarInt(in)];
+
+				String value;
+				if (isStyle(namespace, name)) {
+					String[] declarations = new String[readVarInt(in)];
+					for (int j = 0; j < declarations.length; j++) {
+						declarations[j] = values[readVarInt(in)];
+					}
+					value = String.join(";", declarations);
+				} else {
+					value = values[readVarInt(in)];
+				}
+
+				element.setAttributeNS(namespace, name, value);
+			}
+
+			// Attached before the children are added, like the parser does
+			parent.appendChild(element);
+
+			int childCount = readVarInt(in);
+			for (int i = 0; i < childCount; i++) {
+				readNode(element);
+			}
+		}
+
+		private String readNamespace() {
+			int namespace = readVarInt(in);
+			return namespace == 0 ? null : names[namespace - 1];
+		}
+	}
+
+	private static boolean isStyle(String namespace, String name) {
+		return namespace == null && "style".equals(name);
+	}
+
+	private static void writeTable(ByteArrayOutputStream out, Map<String, Integer> strings) {
+		String[] table = new String[strings.size()];
+		for (Map.Entry<String, Integer> string : strings.entrySet()) {
+			table[string.getValue()] = string.getKey();
+		}
+
+		writeVarInt(out, table.length);
+		for (String string : table) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, bytes.length);
+			out.write(bytes, 0, bytes.length);
+		}
+	}
+
+	private static String[] readTable(ByteBuffer in, boolean intern) {
+		String[] table = new String[readVarInt(in)];
+		for (int i = 0; i < table.length; i++) {
+			int length = readVarInt(in);
+			String string = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+			table[i] = intern ? string.intern() : string;
+		}
+		return table;
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7f) != 0) {
+			out.write((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarInt(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new BufferUnderflowException();
+	}
+}
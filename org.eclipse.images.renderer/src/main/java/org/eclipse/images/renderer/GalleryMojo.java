@@ -18,17 +18,27 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -38,9 +48,6 @@ import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 
-import com.mortennobel.imagescaling.ResampleFilters;
-import com.mortennobel.imagescaling.ResampleOp;
-
 /**
  * Mojo which renders galleries for comparing and evaluating icons..
  */
@@ -60,6 +67,45 @@ public class GalleryMojo extends AbstractMojo {
 	/** Used to specify the directory name where the SVGs are taken from. */
 	public static final String GIF_DIR = "eclipse.svg.gifdirectory";
 
+	/** Used to specify the number of threads the galleries are created with. */
+	public static final String GALLERY_THREADS = "eclipse.svg.gallerythreads";
+
+	/**
+	 * Used to specify whether resampled tiles are kept for the next run.
+	 */
+	public static final String TILE_CACHE = "eclipse.svg.tilecache";
+
+	/**
+	 * Used to specify the height in pixels after which a gallery continues on
+	 * the next page.
+	 */
+	public static final String GALLERY_PAGE_HEIGHT = "eclipse.svg.gallerypageheight";
+
+	/**
+	 * Used to specify whether the icons are written as a zoomable tiled
+	 * gallery instead of the set and master gallery images.
+	 */
+	public static final String GALLERY_ZOOM = "eclipse.svg.galleryzoom";
+
+	/** Height of the bands the large galleries are composed in. */
+	private static final int BAND_HEIGHT = 512;
+
+	/** The resampled tiles of previous runs, null if disabled. */
+	private TileCache tileCache;
+
+	/** The height after which a gallery continues on the next page, 0 for no pages. */
+	private int pageHeight;
+
+	/** If true, a zoomable gallery replaces the set and master galleries. */
+	private boolean zoom;
+
+	/**
+	 * Writes the galleries composed band by band, at the default deflate
+	 * level of zlib.
+	 */
+	private final PngEncoder pngEncoder = new PngEncoder(6, PngEncoder.Strategy.standard,
+			PngEncoder.Filter.none);
+
 	/**
 	 * <p>
 	 * Mojo takes rendered images and generates various galleries for testing
@@ -84,6 +130,37 @@ public class GalleryMojo extends AbstractMojo {
 			gifDir = gifDirProp;
 		}
 
+		// Defaults to the number of processor cores
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		String threadsProp = System.getProperty(GALLERY_THREADS);
+		if (threadsProp != null) {
+			try {
+				threads = Math.max(1, Integer.parseInt(threadsProp.trim()));
+			} catch (NumberFormatException e) {
+				log.error("Could not parse gallery thread count, using default.", e);
+			}
+		}
+
+		// Defaults to "true"
+		boolean cacheTiles = true;
+		String tileCacheProp = System.getProperty(TILE_CACHE);
+		if (tileCacheProp != null) {
+			cacheTiles = Boolean.parseBoolean(tileCacheProp);
+		}
+
+		// Defaults to 0, a single page
+		String pageHeightProp = System.getProperty(GALLERY_PAGE_HEIGHT);
+		if (pageHeightProp != null) {
+			try {
+				pageHeight = Math.max(0, Integer.parseInt(pageHeightProp.trim()));
+			} catch (NumberFormatException e) {
+				log.error("Could not parse gallery page height, using default.", e);
+			}
+		}
+
+		// Defaults to "false"
+		zoom = Boolean.parseBoolean(System.getProperty(GALLERY_ZOOM));
+
 		File iconDirectoryRoot = new File(pngDir + "/");
 		if (!iconDirectoryRoot.exists()) {
 			log.error("PNG directory' " + pngDir + "' does not exist.");
@@ -117,9 +194,11 @@ public class GalleryMojo extends AbstractMojo {
 		gifCompare.mkdirs();
 		master.mkdirs();
 
-		renderGalleries(galleryDir, gifCompare, master, galleryIconSets, 16, 800, pngDir, gifDir);
+		if (cacheTiles) {
+			tileCache = new TileCache(new File(galleryDir, "tiles/"));
+		}
 
-		galleryIconSets.clear();
+		Map<String, List<IconEntry>> bannerIconSets = new HashMap<>();
 		// Search each subdir in the root dir for svg icons
 		for (File file : iconDirectoryRoot.listFiles()) {
 			if(!file.isDirectory()) {
@@ -128,71 +207,174 @@ public class GalleryMojo extends AbstractMojo {
 			List<IconEntry> icons = new ArrayList<>();
 			IconGatherer.gatherIcons(icons, "png", file, file, iconDirectoryRoot, false, FolderState.only);
 
-			galleryIconSets.put(file.getName(), icons);
+			bannerIconSets.put(file.getName(), icons);
+		}
+
+		// All galleries share one pool, the banner galleries fill the threads
+		// while the last icon sets are finished for the master gallery
+		long startTime = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> galleries = renderGalleries(executor, galleryDir, gifCompare, galleryIconSets, 16, 800,
+					pngDir, gifDir);
+			List<Future<?>> banners = renderWizardBannerCompareGalleries(executor, gifCompare, bannerIconSets, 75,
+					800, pngDir, gifDir);
+
+			if (zoom) {
+				ZoomGallery zoomGallery = new ZoomGallery(new File(galleryDir, "zoom/"), 16,
+						(file, size) -> readTile(file, size, false), pngEncoder, log);
+				log.info("Zoomable gallery: " + zoomGallery.write(galleryIconSets, executor) + " tiles written");
+			}
+
+			waitFor(galleries);
+			if (!zoom) {
+				waitFor(renderMasterGalleries(executor, galleryDir, master, 16, 800));
+			}
+			waitFor(banners);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Error while writing the zoomable gallery: " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while creating galleries.", e);
+		} catch (ExecutionException e) {
+			throw new MojoExecutionException("Error while creating galleries: " + e.getCause().getMessage(),
+					e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		log.info("Galleries took: " + (System.currentTimeMillis() - startTime) + " ms on " + threads + " threads.");
+		if (tileCache != null) {
+			log.info("Tile cache: " + tileCache.getHits() + " hits, " + tileCache.getMisses() + " misses");
 		}
-		renderWizardBannerCompareGalleries(gifCompare, galleryIconSets, 75, 800, pngDir, gifDir);
 	}
 
 	/**
 	 * <p>
 	 * Renders each icon set into a gallery image for reviewing and showing off
-	 * icons, and then composes them into a master gallery image.
+	 * icons, and a comparison with the old gifs. Every gallery is a task of
+	 * its own. The gallery images are left out if the zoomable gallery is
+	 * written.
 	 * </p>
 	 *
+	 * @param executor
 	 * @param galleryDir
 	 * @param gifCompare
-	 * @param master
 	 * @param iconSets
 	 * @param iconSize
 	 * @param width
 	 * @param pngDir
 	 * @param gifDir
+	 * @return the tasks rendering the galleries
 	 */
-	public void renderGalleries(File galleryDir, File gifCompare, File master, Map<String, List<IconEntry>> iconSets,
-			int iconSize, int width, String pngDir, String gifDir) {
-		// Render each icon set and a master list
-		List<IconEntry> masterList = new ArrayList<>();
+	public List<Future<?>> renderGalleries(ExecutorService executor, File galleryDir, File gifCompare,
+			Map<String, List<IconEntry>> iconSets, int iconSize, int width, String pngDir, String gifDir) {
+		List<Future<?>> galleries = new ArrayList<>();
 
 		for (Entry<String, List<IconEntry>> entry : iconSets.entrySet()) {
 			String key = entry.getKey();
 			List<IconEntry> value = entry.getValue();
 
-			masterList.addAll(value);
-
-			log.info("Creating gallery for: " + key);
-			renderGallery(galleryDir, key, value, iconSize, width, 3);
-			renderGifCompareGallery(gifCompare, key, value, iconSize, width, 6, pngDir, gifDir, GIF_EXT);
+			// The zoomable gallery shows all sets
+			if (!zoom) {
+				galleries.add(executor.submit(() -> {
+					log.info("Creating gallery for: " + key);
+					renderGallery(galleryDir, key, value, iconSize, width, 3);
+				}));
+			}
+			galleries.add(executor.submit(
+					() -> renderGifCompareGallery(gifCompare, key, value, iconSize, width, 6, pngDir, gifDir, GIF_EXT)));
 		}
+		return galleries;
+	}
 
-		// Render the master image
+	/**
+	 * <p>
+	 * Composes the gallery images of all icon sets into master gallery
+	 * images, on a dark and on a light background.
+	 * </p>
+	 *
+	 * @param executor
+	 * @param galleryDir
+	 * @param master
+	 * @param iconSize
+	 * @param width
+	 * @return the tasks rendering the master galleries
+	 */
+	public List<Future<?>> renderMasterGalleries(ExecutorService executor, File galleryDir, File master, int iconSize,
+			int width) {
 		log.info("Rendering master icon gallery...");
-		renderMasterGallery(galleryDir, master, "-gallery.png", iconSize, iconSize + width, true);
-		renderMasterGallery(galleryDir, master, "-gallery.png", iconSize, iconSize + width, false);
+		List<Future<?>> galleries = new ArrayList<>();
+		galleries.add(executor.submit(
+				() -> renderMasterGallery(galleryDir, master, "-gallery.png", iconSize, iconSize + width)));
 
 		// Master gif compare
 		// renderMasterGallery(outputDir, "-gifcompare.png", iconSize, iconSize
 		// + width, false);
+		return galleries;
 	}
 
 	/**
-	 * <p>Renders each icon set into a gallery image for reviewing and showing off
-	 * icons, and then composes them into a master gallery image.</p>
+	 * <p>Renders each icon set into a gallery image comparing the wizard
+	 * banners with the old ones. Every gallery is a task of its own.</p>
 	 *
+	 * @param executor
 	 * @param gifCompare
 	 * @param iconSets
 	 * @param iconSize
 	 * @param width
 	 * @param pngDir
 	 * @param gifDir
+	 * @return the tasks rendering the galleries
 	 */
-	public void renderWizardBannerCompareGalleries(File gifCompare, Map<String, List<IconEntry>> iconSets, int iconSize, int width, String pngDir, String gifDir) {
+	public List<Future<?>> renderWizardBannerCompareGalleries(ExecutorService executor, File gifCompare,
+			Map<String, List<IconEntry>> iconSets, int iconSize, int width, String pngDir, String gifDir) {
+		List<Future<?>> galleries = new ArrayList<>();
+
 		// Render each icon set
 		for (Entry<String, List<IconEntry>> entry : iconSets.entrySet()) {
 			String key = entry.getKey();
 			List<IconEntry> value = entry.getValue();
 
-			log.info("Creating wizard banner compare gallery for: " + key);
-			renderGifCompareGallery(gifCompare, key, value, iconSize, width, 6, pngDir, gifDir, ".png");
+			galleries.add(executor.submit(() -> {
+				log.info("Creating wizard banner compare gallery for: " + key);
+				renderGifCompareGallery(gifCompare, key, value, iconSize, width, 6, pngDir, gifDir, ".png");
+			}));
+		}
+		return galleries;
+	}
+
+	/**
+	 * <p>
+	 * Reads an image resampled to the size of a gallery tile, from the tile
+	 * cache if it is enabled.
+	 * </p>
+	 *
+	 * @param file
+	 * @param size
+	 * @param keepSmaller
+	 *            if true, an image which already fits is kept as it is
+	 * @return the tile, or null if the image could not be decoded
+	 * @throws IOException
+	 *             if the image could not be read
+	 */
+	private BufferedImage readTile(File file, int size, boolean keepSmaller) throws IOException {
+		if (tileCache != null) {
+			return tileCache.getTile(file, size, keepSmaller);
+		}
+
+		BufferedImage image = ImageIO.read(file);
+		return image != null ? TileCache.createTile(image, size, keepSmaller) : null;
+	}
+
+	/**
+	 * <p>
+	 * Waits until all tasks are done.
+	 * </p>
+	 */
+	private static void waitFor(List<Future<?>> tasks) throws InterruptedException, ExecutionException {
+		for (Future<?> task : tasks) {
+			task.get();
 		}
 	}
 
@@ -212,6 +394,50 @@ public class GalleryMojo extends AbstractMojo {
 	 */
 	private void renderGifCompareGallery(File outputDir, String key, List<IconEntry> icons, int iconSize, int width,
 			int margin, String pngDir, String gifDir, String fileExt) {
+		int textHeaderHeight = 31;
+		int rowHeight = iconSize + (margin * 2);
+
+		// The icon gallery of the set is rendered at the same time
+		List<IconEntry> sortedIcons = new ArrayList<>();
+		for (IconEntry entry : icons) {
+			if (entry.inputPath != null) {
+				sortedIcons.add(entry);
+			}
+		}
+		Collections.sort(sortedIcons);
+
+		int iconsPerPage = sortedIcons.size();
+		if (pageHeight > 0) {
+			iconsPerPage = Math.max(1, (pageHeight - textHeaderHeight) / rowHeight);
+		}
+
+		int page = 0;
+		int first = 0;
+		do {
+			List<IconEntry> pageIcons = sortedIcons.subList(first, Math.min(sortedIcons.size(), first + iconsPerPage));
+			String outputName = key + "-" + iconSize + "-gifcompare" + getPageSuffix(page) + ".png";
+
+			try {
+				renderGifComparePage(new File(outputDir, outputName), key, pageIcons, iconSize, margin, pngDir,
+						gifDir, fileExt);
+			} catch (IOException e) {
+				e.printStackTrace();
+				log.error("Error writing gif comparison gallery: " + e.getMessage());
+			}
+
+			page++;
+			first += iconsPerPage;
+		} while (first < sortedIcons.size());
+	}
+
+	/**
+	 * <p>
+	 * Renders one page of a comparison gallery. The page is composed and
+	 * written in bands of rows, only one band is kept in memory.
+	 * </p>
+	 */
+	private void renderGifComparePage(File outputFile, String key, List<IconEntry> icons, int iconSize, int margin,
+			String pngDir, String gifDir, String fileExt) throws IOException {
 		int leftColumnWidth = 300;
 		int textHeaderHeight = 31;
 		int outputSize = iconSize;
@@ -222,104 +448,93 @@ public class GalleryMojo extends AbstractMojo {
 		// Compute the height and add some room for the text header (31 px)
 		int height = (icons.size() * rowHeight) + textHeaderHeight;
 
-		BufferedImage bi = new BufferedImage(widthTotal + iconSize, height, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = bi.createGraphics();
-		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-		g.setColor(Color.GRAY);
-		g.drawString("SVG Icon Set: " + key + " - Count: " + icons.size(), 8, 20);
+		int second = leftColumnWidth + margin + iconSize;
 
-		int y = textHeaderHeight;
+		int iconsPerBand = Math.max(1, BAND_HEIGHT / rowHeight);
+		BufferedImage band = new BufferedImage(widthTotal + iconSize,
+				Math.min(height, textHeaderHeight + iconsPerBand * rowHeight), BufferedImage.TYPE_INT_ARGB);
+
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile));
+				PngEncoder.StripWriter writer = pngEncoder.startStrips(out, band.getWidth(), height)) {
+			// The first band holds the header as well
+			int first = 0;
+			do {
+				int last = Math.min(icons.size(), first + iconsPerBand);
+				int bandTop = first == 0 ? 0 : textHeaderHeight + first * rowHeight;
+				int bandHeight = textHeaderHeight + last * rowHeight - bandTop;
+
+				// Drawing happens in page coordinates, clipped to the band
+				Graphics2D g = band.createGraphics();
+				g.setBackground(new Color(0, 0, 0, 0));
+				g.clearRect(0, 0, band.getWidth(), band.getHeight());
+				g.translate(0, -bandTop);
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+				g.setColor(Color.WHITE);
+				g.fillRect(0, bandTop, widthTotal + 10, bandHeight);
+
+				g.setColor(Color.DARK_GRAY);
+				g.fillRect(second + (margin / 2) + iconSize + 20, bandTop, (margin * 2) + (iconSize * 2) + 10,
+						bandHeight);
+
+				if (first == 0) {
+					g.drawString(key + " (Old / New)", 15, 20);
+				}
 
-		// Render
-		ResampleOp resampleOp = new ResampleOp(outputSize, outputSize);
-		resampleOp.setFilter(ResampleFilters.getLanczos3Filter());
-		// resampleOp.setUnsharpenMask(AdvancedResizeOp.UnsharpenMask.Oversharpened);
-		resampleOp.setNumberOfThreads(Runtime.getRuntime().availableProcessors());
+				// Render each icon into the gallery grid
+				for (int i = first; i < last; i++) {
+					IconEntry entry = icons.get(i);
+					int y = textHeaderHeight + i * rowHeight;
 
-		int second = leftColumnWidth + margin + iconSize;
+					try {
+						// Munge the gif path
+						File gifLocalPath = new File(entry.inputPath.getParentFile(), entry.nameBase + fileExt);
+						String absoluteLocalPath = gifLocalPath.getAbsolutePath();
+						String gifAbsPath = absoluteLocalPath.replaceFirst(pngDir, gifDir);
+						File gifPath = new File(gifAbsPath);
 
-		g.setColor(Color.WHITE);
-		g.fillRect(0, 0, widthTotal + 10, height);
+						log.debug("Search for old images...");
+						log.debug("Entry path: " + entry.inputPath.getAbsolutePath());
+						log.debug("Old image path: " + gifPath.getAbsolutePath());
 
-		g.setColor(Color.DARK_GRAY);
-		g.fillRect(second + (margin / 2) + iconSize + 20, 0, (margin * 2) + (iconSize * 2) + 10, height);
+						BufferedImage sizedGifImage = null;
 
-		g.drawString(key + " (Old / New)", 15, 20);
+						if (gifPath.exists()) {
+							sizedGifImage = readTile(gifPath, outputSize, true);
+						} else {
+							log.debug("Old image not found: " + gifPath.getAbsolutePath());
+						}
 
-		Collections.sort(icons);
+						BufferedImage sizedPngImage = readTile(entry.inputPath, outputSize, true);
+						if (sizedPngImage == null) {
+							throw new IOException("Unsupported image: " + entry.inputPath);
+						}
 
-		// Render each icon into the gallery grid
-		for (IconEntry entry : icons) {
+						g.drawString(entry.nameBase, 5, y + (margin * 3));
 
-			if (entry.inputPath == null) {
-				continue;
-			}
+						g.drawLine(0, y, widthTotal, y);
 
-			try {
-				BufferedImage pngImage = ImageIO.read(entry.inputPath);
-
-				// Munge the gif path
-				File gifLocalPath = new File(entry.inputPath.getParentFile(), entry.nameBase + fileExt);
-				String absoluteLocalPath = gifLocalPath.getAbsolutePath();
-				String gifAbsPath = absoluteLocalPath.replaceFirst(pngDir, gifDir);
-				File gifPath = new File(gifAbsPath);
-
-				log.debug("Search for old images...");
-				log.debug("Entry path: " + entry.inputPath.getAbsolutePath());
-				log.debug("Old image path: " + gifPath.getAbsolutePath());
-
-				BufferedImage gifImage = null;
-				BufferedImage sizedGifImage = null;
-				BufferedImage sizedPngImage = null;
-
-				if (gifPath.exists()) {
-					gifImage = ImageIO.read(gifPath);
-				} else {
-					log.debug("Old image not found: " + gifPath.getAbsolutePath());
-				}
+						if (sizedGifImage != null) {
+							g.drawImage(sizedGifImage, leftColumnWidth, y + margin, null);
+						}
 
-				g.drawString(entry.nameBase, 5, y + (margin * 3));
+						g.drawImage(sizedPngImage, second, y + margin, null);
 
-				g.drawLine(0, y, widthTotal, y);
+						if (sizedGifImage != null) {
+							g.drawImage(sizedGifImage, second + margin + iconSize + 30, y + margin, null);
+						}
 
-				if (gifImage != null) {
-					if (gifImage.getWidth() > outputSize || gifImage.getHeight() > outputSize) {
-						sizedGifImage = resampleOp.filter(gifImage, null);
-					} else {
-						sizedGifImage = gifImage;
+						g.drawImage(sizedPngImage, second + (margin * 2) + (iconSize * 2) + 30, y + margin, null);
+					} catch (Exception e) {
+						e.printStackTrace();
+						log.error("Error rendering icon for gallery: " + entry.inputPath.getAbsolutePath());
 					}
-					g.drawImage(sizedGifImage, leftColumnWidth, y + margin, null);
 				}
 
-				if (pngImage.getWidth() > outputSize || pngImage.getHeight() > outputSize) {
-					sizedPngImage = resampleOp.filter(pngImage, null);
-				} else {
-					sizedPngImage = pngImage;
-				}
-				g.drawImage(sizedPngImage, second, y + margin, null);
-
-				if (gifImage != null) {
-					g.drawImage(sizedGifImage, second + margin + iconSize + 30, y + margin, null);
-				}
-
-				g.drawImage(sizedPngImage, second + (margin * 2) + (iconSize * 2) + 30, y + margin, null);
-
-				y += iconSize + margin * 2;
-			} catch (Exception e) {
-				e.printStackTrace();
-				log.error("Error rendering icon for gallery: " + entry.inputPath.getAbsolutePath());
-				continue;
-			}
-		}
-
-		try {
-			// Write the gallery image to disk
-			String outputName = key + "-" + iconSize + "-gifcompare.png";
-			ImageIO.write(bi, "PNG", new File(outputDir, outputName));
-		} catch (IOException e) {
-			e.printStackTrace();
-			log.error("Error writing gif comparison gallery: " + e.getMessage());
+				g.dispose();
+				writer.write(band, bandHeight);
+				first = last;
+			} while (first < icons.size());
 		}
 	}
 
@@ -357,12 +572,6 @@ public class GalleryMojo extends AbstractMojo {
 		int x = 1;
 		int y = textHeaderHeight;
 
-		// Render
-		ResampleOp resampleOp = new ResampleOp(outputSize, outputSize);
-		resampleOp.setFilter(ResampleFilters.getLanczos3Filter());
-		// resampleOp.setUnsharpenMask(AdvancedResizeOp.UnsharpenMask.Oversharpened);
-		resampleOp.setNumberOfThreads(Runtime.getRuntime().availableProcessors());
-
 		// Render each icon into the gallery grid
 		for (IconEntry def : icons) {
 			try {
@@ -371,8 +580,10 @@ public class GalleryMojo extends AbstractMojo {
 					continue;
 				}
 
-				BufferedImage iconImage = ImageIO.read(def.inputPath);
-				BufferedImage sizedImage = resampleOp.filter(iconImage, null);
+				BufferedImage sizedImage = readTile(def.inputPath, outputSize, false);
+				if (sizedImage == null) {
+					throw new IOException("Unsupported image: " + def.inputPath);
+				}
 
 				g.drawImage(sizedImage, x + margin, y + margin, null);
 
@@ -401,8 +612,10 @@ public class GalleryMojo extends AbstractMojo {
 
 	/**
 	 * <p>
-	 * Renders a master gallery image that contains every icon set at the
-	 * current resolution.
+	 * Renders the master gallery images that contain every icon set at the
+	 * current resolution, on a dark and on a light background. The images
+	 * are composed and written one icon set at a time, every set is read
+	 * once for both.
 	 * </p>
 	 * 
 	 * @param root
@@ -410,59 +623,131 @@ public class GalleryMojo extends AbstractMojo {
 	 * @param fileEnding
 	 * @param iconSize
 	 * @param width
-	 * @param dark
 	 */
-	private void renderMasterGallery(File root, File output, String fileEnding, int iconSize, int width, boolean dark) {
-		int headerHeight = 30;
-		List<BufferedImage> images = new ArrayList<>();
+	private void renderMasterGallery(File root, File output, String fileEnding, int iconSize, int width) {
+		int headerHeight = 31;
+
+		// Only the sizes are read up front, to split the sets into pages
+		List<List<File>> pages = new ArrayList<>();
+		List<Integer> pageHeights = new ArrayList<>();
+		List<File> page = new ArrayList<>();
+		int height = headerHeight;
 		for (File file : root.listFiles()) {
 			if (file.getName().endsWith(iconSize + fileEnding)) {
-				BufferedImage set = null;
+				int setHeight;
 				try {
-					set = ImageIO.read(file);
+					setHeight = readHeight(file);
 				} catch (IOException e) {
 					log.error("Error reading icon: " + e.getMessage());
 					e.printStackTrace();
 					continue;
 				}
-				images.add(set);
-				headerHeight += set.getHeight();
+
+				if (pageHeight > 0 && !page.isEmpty() && height + setHeight > pageHeight) {
+					pages.add(page);
+					pageHeights.add(height);
+					page = new ArrayList<>();
+					height = headerHeight;
+				}
+				page.add(file);
+				height += setHeight;
 			}
 		}
+		pages.add(page);
+		pageHeights.add(height);
+
+		String title = "SVG Icons for Eclipse - Count: " + iconSize + "x" + iconSize + " Rendered: "
+				+ new Date().toString();
+
+		for (int i = 0; i < pages.size(); i++) {
+			String outputName = "global-svg-" + iconSize + "-%s" + fileEnding + "-icons" + getPageSuffix(i) + ".png";
+			try (OutputStream darkOut = new BufferedOutputStream(
+					new FileOutputStream(new File(output, String.format(outputName, "dark"))));
+					OutputStream lightOut = new BufferedOutputStream(
+							new FileOutputStream(new File(output, String.format(outputName, "light"))));
+					PngEncoder.StripWriter dark = pngEncoder.startStrips(darkOut, width, pageHeights.get(i));
+					PngEncoder.StripWriter light = pngEncoder.startStrips(lightOut, width, pageHeights.get(i))) {
+				writeMasterBand(dark, null, title, width, headerHeight, Color.DARK_GRAY);
+				writeMasterBand(light, null, title, width, headerHeight, Color.WHITE);
+
+				// Draw each icon set image into the uber gallery
+				for (File file : pages.get(i)) {
+					BufferedImage image = null;
+					int setHeight;
+					try {
+						image = ImageIO.read(file);
+						if (image == null) {
+							throw new IOException("No image reader for " + file);
+						}
+						setHeight = image.getHeight();
+					} catch (IOException e) {
+						// The set was measured, so its rows are left empty
+						log.error("Error reading icon: " + e.getMessage());
+						e.printStackTrace();
+						setHeight = readHeight(file);
+					}
+					writeMasterBand(dark, image, null, width, setHeight, Color.DARK_GRAY);
+					writeMasterBand(light, image, null, width, setHeight, Color.WHITE);
+				}
+			} catch (IOException e) {
+				log.error("Error writing gallery: " + e.getMessage());
+				e.printStackTrace();
+			}
+		}
+	}
 
-		BufferedImage bi = new BufferedImage(width, headerHeight, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = bi.createGraphics();
+	/**
+	 * <p>
+	 * Writes a band of a master gallery, an icon set image or the header.
+	 * </p>
+	 */
+	private static void writeMasterBand(PngEncoder.StripWriter writer, BufferedImage image, String title, int width,
+			int height, Color background) throws IOException {
+		BufferedImage band = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = band.createGraphics();
 		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setColor(background);
+		g.fillRect(0, 0, width, height);
 
-		if (dark) {
-			g.setColor(Color.DARK_GRAY);
-		} else {
-			g.setColor(Color.WHITE);
+		if (title != null) {
+			g.setColor(Color.BLACK);
+			g.drawString(title, 8, 20);
+		}
+		if (image != null) {
+			g.drawImage(image, 0, 0, null);
 		}
-		g.fillRect(0, 0, bi.getWidth(), bi.getHeight());
+		g.dispose();
 
-		g.setColor(Color.BLACK);
-		g.drawString(
-				"SVG Icons for Eclipse - Count: " + iconSize + "x" + iconSize + " Rendered: " + new Date().toString(),
-				8, 20);
+		writer.write(band, height);
+	}
 
-		int x = 0;
-		int y = 31;
+	/**
+	 * <p>
+	 * Reads the height of an image without decoding it.
+	 * </p>
+	 */
+	private static int readHeight(File file) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+			Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+			if (readers == null || !readers.hasNext()) {
+				throw new IOException("Unsupported image: " + file);
+			}
 
-		// Draw each icon set image into the uber gallery
-		for (BufferedImage image : images) {
-			g.drawImage(image, x, y, null);
-			y += image.getHeight();
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in);
+				return reader.getHeight(0);
+			} finally {
+				reader.dispose();
+			}
 		}
+	}
 
-		try {
-			// Write the uber gallery to disk
-			String bgState = (dark) ? "dark" : "light";
-			String outputName = "global-svg-" + iconSize + "-" + bgState + fileEnding + "-icons.png";
-			ImageIO.write(bi, "PNG", new File(output, outputName));
-		} catch (IOException e) {
-			log.error("Error writing gallery: " + e.getMessage());
-			e.printStackTrace();
-		}
+	/**
+	 * @return the suffix of the file name of a gallery page, empty for the
+	 *         first page
+	 */
+	private static String getPageSuffix(int page) {
+		return page > 0 ? "-" + (page + 1) : "";
 	}
 }
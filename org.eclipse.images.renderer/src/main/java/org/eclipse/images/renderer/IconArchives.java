@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * Writes the rendered icons straight into one jar per output base (the icon
+ * root's directory or its hidpi fragment) instead of into single files. The
+ * entries are stored uncompressed, PNG data is already deflated. An output
+ * file <code>eclipse-png/org.eclipse.ui/icons/full/obj16/icon.png</code> is
+ * written to the entry <code>icons/full/obj16/icon.png</code> of
+ * <code>eclipse-png/org.eclipse.ui.jar</code>.
+ * </p>
+ * <p>
+ * The jars are reproducible: the entries are collected while the icons are
+ * rendered and written when the archives are closed, the manifest first and
+ * the others sorted by name, all with the same fixed time. A registered
+ * archive without entries is deleted, so no jar of an earlier run is left
+ * behind.
+ * </p>
+ */
+class IconArchives {
+
+	/** The name of the manifest entry. */
+	private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+	/** The time of every entry, the earliest a zip entry can hold. */
+	private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+
+	/** The archive of every output base. */
+	private final Map<File, Archive> archives = new ConcurrentHashMap<>();
+
+	/** Number of entries written. */
+	private final LongAdder entries = new LongAdder();
+
+	/** Number of bytes written, without the archive structures. */
+	private final LongAdder bytesWritten = new LongAdder();
+
+	/** An archive being collected, written when the archives are closed. */
+	private static class Archive {
+
+		final File file;
+
+		final String manifest;
+
+		final SortedMap<String, byte[]> entries = new TreeMap<>();
+
+		boolean written;
+
+		Archive(File file, String manifest) {
+			this.file = file;
+			this.manifest = manifest;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Registers the archive of an output base. Output files below the base
+	 * are written into it.
+	 * </p>
+	 *
+	 * @param outputBase
+	 *            the directory the icons would be written to otherwise
+	 * @param manifest
+	 *            the content of the archive's manifest, null for none
+	 */
+	void addArchive(File outputBase, String manifest) {
+		File base = outputBase.getAbsoluteFile();
+		archives.put(base, new Archive(new File(base.getPath() + ".jar"), manifest));
+	}
+
+	/**
+	 * <p>
+	 * Writes an output file into the archive of its output base.
+	 * </p>
+	 *
+	 * @param file
+	 *            the output file, below a registered output base
+	 * @param content
+	 *            the content of the file
+	 * @throws IOException
+	 *             if the file is not below an output base or the archive
+	 *             could not be written
+	 */
+	void write(File file, byte[] content) throws IOException {
+		File absolute = file.getAbsoluteFile();
+		for (File base = absolute.getParentFile(); base != null; base = base.getParentFile()) {
+			Archive archive = archives.get(base);
+			if (archive != null) {
+				String name = base.toPath().relativize(absolute.toPath()).toString().replace(File.separatorChar, '/');
+				write(archive, name, content);
+				entries.increment();
+				bytesWritten.add(content.length);
+				return;
+			}
+		}
+
+		throw new IOException("No archive for output file: " + file.getAbsolutePath());
+	}
+
+	/**
+	 * <p>
+	 * Writes all archives and deletes those without entries.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             if an archive could not be written
+	 */
+	void close() throws IOException {
+		IOException failure = null;
+		for (Archive archive : archives.values()) {
+			synchronized (archive) {
+				try {
+					if (archive.entries.isEmpty()) {
+						Files.deleteIfExists(archive.file.toPath());
+					} else {
+						writeArchive(archive);
+						archive.written = true;
+					}
+				} catch (IOException e) {
+					failure = e;
+				}
+				archive.entries.clear();
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * @return the number of archives that were written
+	 */
+	int getArchiveCount() {
+		int count = 0;
+		for (Archive archive : archives.values()) {
+			if (archive.written) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of entries written
+	 */
+	long getEntries() {
+		return entries.sum();
+	}
+
+	/**
+	 * @return the number of bytes written, without the archive structures
+	 */
+	long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	private void write(Archive archive, String name, byte[] content) {
+		synchronized (archive) {
+			archive.entries.put(name, content);
+		}
+	}
+
+	private static void writeArchive(Archive archive) throws IOException {
+		archive.file.getParentFile().mkdirs();
+		try (ZipOutputStream stream = new ZipOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(archive.file.toPath())))) {
+			// The manifest has to be the first entry of a jar
+			if (archive.manifest != null) {
+				putStored(stream, MANIFEST, archive.manifest.getBytes(StandardCharsets.UTF_8));
+			}
+
+			for (Map.Entry<String, byte[]> entry : archive.entries.entrySet()) {
+				putStored(stream, entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private static void putStored(ZipOutputStream stream, String name, byte[] content) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(content.length);
+		entry.setCompressedSize(content.length);
+		entry.setCrc(crc.getValue());
+		entry.setTimeLocal(ENTRY_TIME);
+
+		stream.putNextEntry(entry);
+		stream.write(content);
+		stream.closeEntry();
+	}
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * <p>
+ * Packs the icons of an icon root into a few large images, so consumers open
+ * and decode one file instead of hundreds. The icons are placed on shelves,
+ * tallest first, and a new page is started when a page is full. An icon
+ * larger than a page gets a page of its own, sized to fit. The packing only
+ * depends on the icon paths and sizes, so the same icons always produce the
+ * same atlas.
+ * </p>
+ * <p>
+ * The index maps the path of every icon, relative to the icon root's output
+ * directory, to its page and rectangle. It is written as a properties file
+ * and in a binary form that is sorted by path:
+ * </p>
+ *
+ * <pre>
+ * int magic ("EIAT"), int version, int page count, int entry count
+ * entry count times: UTF path, int page, int x, int y, int width, int height
+ * </pre>
+ */
+class IconAtlas {
+
+	/** First bytes of the binary index. */
+	static final int MAGIC = 0x45494154;
+
+	/** Version of the binary index. */
+	static final int VERSION = 1;
+
+	/** Maximum width and height of a page shared by several icons. */
+	static final int MAX_PAGE_SIZE = 1024;
+
+	/** Transparent pixels between the icons, avoids bleeding when scaled. */
+	private static final int PADDING = 1;
+
+	/** The position of an icon in the atlas. */
+	record Region(String path, int page, int x, int y, int width, int height) {
+	}
+
+	/** The packed pages. */
+	private final List<BufferedImage> pages;
+
+	/** The regions of the icons, sorted by path. */
+	private final List<Region> regions;
+
+	private IconAtlas(List<BufferedImage> pages, List<Region> regions) {
+		this.pages = pages;
+		this.regions = regions;
+	}
+
+	/**
+	 * <p>
+	 * Packs icons into an atlas.
+	 * </p>
+	 *
+	 * @param icons
+	 *            the icons by their relative path
+	 * @return the atlas
+	 */
+	static IconAtlas pack(SortedMap<String, BufferedImage> icons) {
+		// Tallest first, the path makes the order unique
+		List<Map.Entry<String, BufferedImage>> sorted = new ArrayList<>(icons.entrySet());
+		sorted.sort(Comparator.<Map.Entry<String, BufferedImage>> comparingInt(entry -> -entry.getValue().getHeight())
+				.thenComparing(Map.Entry::getKey));
+
+		List<Region> regions = new ArrayList<>(sorted.size());
+		List<int[]> pageSizes = new ArrayList<>();
+		List<Map.Entry<String, BufferedImage>> oversized = new ArrayList<>();
+		int page = 0;
+		int x = 0;
+		int y = 0;
+		int shelfHeight = 0;
+		int pageWidth = 0;
+
+		for (Map.Entry<String, BufferedImage> icon : sorted) {
+			int width = icon.getValue().getWidth();
+			int height = icon.getValue().getHeight();
+			if (width > MAX_PAGE_SIZE || height > MAX_PAGE_SIZE) {
+				oversized.add(icon);
+				continue;
+			}
+
+			if (x > 0 && x + width > MAX_PAGE_SIZE) {
+				// Next shelf
+				y += shelfHeight + PADDING;
+				x = 0;
+				shelfHeight = 0;
+			}
+
+			if (y > 0 && y + height > MAX_PAGE_SIZE) {
+				// Next page
+				pageSizes.add(new int[] { pageWidth, y - PADDING });
+				page++;
+				x = 0;
+				y = 0;
+				shelfHeight = 0;
+				pageWidth = 0;
+			}
+
+			regions.add(new Region(icon.getKey(), page, x, y, width, height));
+			x += width + PADDING;
+			shelfHeight = Math.max(shelfHeight, height);
+			pageWidth = Math.max(pageWidth, x - PADDING);
+		}
+
+		if (!regions.isEmpty()) {
+			pageSizes.add(new int[] { pageWidth, y + shelfHeight });
+		}
+
+		// Pages of their own after the shared ones, in the same order
+		for (Map.Entry<String, BufferedImage> icon : oversized) {
+			int width = icon.getValue().getWidth();
+			int height = icon.getValue().getHeight();
+			regions.add(new Region(icon.getKey(), pageSizes.size(), 0, 0, width, height));
+			pageSizes.add(new int[] { width, height });
+		}
+
+		List<BufferedImage> pages = new ArrayList<>(pageSizes.size());
+		for (int[] size : pageSizes) {
+			pages.add(new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB));
+		}
+
+		// Copy the pixels as they are, drawing would blend translucent ones
+		for (Region region : regions) {
+			int[] pixels = icons.get(region.path()).getRGB(0, 0, region.width(), region.height(), null, 0,
+					region.width());
+			pages.get(region.page()).setRGB(region.x(), region.y(), region.width(), region.height(), pixels, 0,
+					region.width());
+		}
+
+		regions.sort(Comparator.comparing(Region::path));
+		return new IconAtlas(pages, Collections.unmodifiableList(regions));
+	}
+
+	/**
+	 * @return the packed pages
+	 */
+	List<BufferedImage> getPages() {
+		return pages;
+	}
+
+	/**
+	 * @return the regions of the icons, sorted by path
+	 */
+	List<Region> getRegions() {
+		return regions;
+	}
+
+	/**
+	 * <p>
+	 * Writes the index as properties, one line per icon with its page, x, y,
+	 * width and height.
+	 * </p>
+	 *
+	 * @param out
+	 *            the stream to write to, not closed
+	 * @throws IOException
+	 *             if the index could not be written
+	 */
+	void writeProperties(OutputStream out) throws IOException {
+		// Written by hand, Properties.store() adds a timestamp
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.ISO_8859_1);
+		for (Region region : regions) {
+			writer.write(escapeKey(region.path()));
+			writer.write('=');
+			writer.write(region.page() + "," + region.x() + "," + region.y() + "," + region.width() + ","
+					+ region.height());
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Escapes a key the way {@link java.util.Properties#store(Writer, String)}
+	 * does, characters outside of printable ASCII as unicode escapes.
+	 */
+	private static String escapeKey(String key) {
+		StringBuilder escaped = new StringBuilder(key.length() + 8);
+		for (char c : key.toCharArray()) {
+			switch (c) {
+			case '\\', ' ', '=', ':', '#', '!':
+				escaped.append('\\').append(c);
+				break;
+			case '\t':
+				escaped.append("\\t");
+				break;
+			case '\n':
+				escaped.append("\\n");
+				break;
+			case '\r':
+				escaped.append("\\r");
+				break;
+			case '\f':
+				escaped.append("\\f");
+				break;
+			default:
+				if (c < 0x20 || c > 0x7e) {
+					escaped.append(String.format(Locale.ROOT, "\\u%04X", (int) c));
+				} else {
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * <p>
+	 * Writes the binary index.
+	 * </p>
+	 *
+	 * @param out
+	 *            the stream to write to, not closed
+	 * @throws IOException
+	 *             if the index could not be written
+	 */
+	void writeBinary(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(pages.size());
+		data.writeInt(regions.size());
+		for (Region region : regions) {
+			data.writeUTF(region.path());
+			data.writeInt(region.page());
+			data.writeInt(region.x());
+			data.writeInt(region.y());
+			data.writeInt(region.width());
+			data.writeInt(region.height());
+		}
+		data.flush();
+	}
+
+	/**
+	 * <p>
+	 * Reads a binary index.
+	 * </p>
+	 *
+	 * @param in
+	 *            the stream to read from, not closed
+	 * @return the regions, sorted by path
+	 * @throws IOException
+	 *             if the index could not be read or is not a binary index
+	 */
+	static List<Region> readBinary(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not an icon atlas index");
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported icon atlas index version: " + version);
+		}
+
+		data.readInt();
+		int count = data.readInt();
+		List<Region> regions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			regions.add(new Region(data.readUTF(), data.readInt(), data.readInt(), data.readInt(), data.readInt(),
+					data.readInt()));
+		}
+		return regions;
+	}
+}
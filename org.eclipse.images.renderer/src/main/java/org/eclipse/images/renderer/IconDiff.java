@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * <p>
+ * The difference between a rendered icon and its baseline. Identical files
+ * are recognized from their bytes, without decoding them. Otherwise the
+ * pixels are compared as raw ARGB values, premultiplied so the invisible
+ * colour of fully transparent pixels doesn't count, and a pixel only counts
+ * as changed if a channel differs by more than the tolerance.
+ * </p>
+ *
+ * @param icon
+ *            the path of the icon, relative to the compared trees
+ * @param status
+ *            how the icon changed
+ * @param changedPixels
+ *            the number of pixels that differ by more than the tolerance
+ * @param maxDelta
+ *            the largest difference of a channel, from 0 to 255
+ */
+record IconDiff(String icon, Status status, int changedPixels, int maxDelta) {
+
+	/** How an icon changed. */
+	enum Status {
+		/** Same bytes. */
+		identical,
+		/** Different bytes, but no pixel differs by more than the tolerance. */
+		unchanged,
+		/** Pixels differ by more than the tolerance. */
+		changed,
+		/** The icon has a different size. */
+		resized,
+		/** The icon is new. */
+		added,
+		/** The icon is gone. */
+		removed,
+		/** One of the files could not be decoded. */
+		unreadable
+	}
+
+	/**
+	 * @return true if the icon belongs into the report
+	 */
+	boolean isChanged() {
+		return status != Status.identical && status != Status.unchanged;
+	}
+
+	/**
+	 * <p>
+	 * Compares a rendered icon with its baseline.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the path of the icon, relative to the compared trees
+	 * @param baseline
+	 *            the baseline file, null if there is none
+	 * @param current
+	 *            the rendered file, null if there is none
+	 * @param tolerance
+	 *            the largest difference of a channel that is ignored
+	 * @return the difference
+	 * @throws IOException
+	 *             if a file could not be read
+	 */
+	static IconDiff compare(String icon, File baseline, File current, int tolerance) throws IOException {
+		if (baseline == null) {
+			return new IconDiff(icon, Status.added, 0, 0);
+		}
+		if (current == null) {
+			return new IconDiff(icon, Status.removed, 0, 0);
+		}
+
+		byte[] baselineBytes = Files.readAllBytes(baseline.toPath());
+		byte[] currentBytes = Files.readAllBytes(current.toPath());
+		if (Arrays.equals(baselineBytes, currentBytes)) {
+			return new IconDiff(icon, Status.identical, 0, 0);
+		}
+
+		BufferedImage baselineImage = ImageIO.read(new ByteArrayInputStream(baselineBytes));
+		BufferedImage currentImage = ImageIO.read(new ByteArrayInputStream(currentBytes));
+		if (baselineImage == null || currentImage == null) {
+			return new IconDiff(icon, Status.unreadable, 0, 0);
+		}
+
+		int width = baselineImage.getWidth();
+		int height = baselineImage.getHeight();
+		if (currentImage.getWidth() != width || currentImage.getHeight() != height) {
+			return new IconDiff(icon, Status.resized, Math.max(width * height,
+					currentImage.getWidth() * currentImage.getHeight()), 255);
+		}
+
+		int[] baselinePixels = getPixels(baselineImage);
+		int[] currentPixels = getPixels(currentImage);
+
+		int changedPixels = 0;
+		int maxDelta = 0;
+		for (int i = 0; i < baselinePixels.length; i++) {
+			int first = baselinePixels[i];
+			int second = currentPixels[i];
+			if (first == second) {
+				continue;
+			}
+
+			int delta = getDelta(first, second);
+			maxDelta = Math.max(maxDelta, delta);
+			if (delta > tolerance) {
+				changedPixels++;
+			}
+		}
+		return new IconDiff(icon, changedPixels > 0 ? Status.changed : Status.unchanged, changedPixels, maxDelta);
+	}
+
+	/**
+	 * <p>
+	 * Draws where two images of the same size differ: changed pixels in red,
+	 * the others as a faint copy of the baseline.
+	 * </p>
+	 *
+	 * @param baseline
+	 *            the baseline image
+	 * @param current
+	 *            the rendered image
+	 * @param tolerance
+	 *            the largest difference of a channel that is ignored
+	 * @return the difference image
+	 */
+	static BufferedImage createDiffImage(BufferedImage baseline, BufferedImage current, int tolerance) {
+		int width = baseline.getWidth();
+		int height = baseline.getHeight();
+		int[] baselinePixels = getPixels(baseline);
+		int[] currentPixels = getPixels(current);
+
+		int[] diff = new int[baselinePixels.length];
+		for (int i = 0; i < diff.length; i++) {
+			if (getDelta(baselinePixels[i], currentPixels[i]) > tolerance) {
+				diff[i] = 0xffff0000;
+			} else {
+				diff[i] = ((baselinePixels[i] >>> 24) / 4) << 24 | (baselinePixels[i] & 0xffffff);
+			}
+		}
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, diff, 0, width);
+		return image;
+	}
+
+	/**
+	 * @return the ARGB pixels of an image, straight from its raster if it
+	 *         already is ARGB
+	 */
+	static int[] getPixels(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		if (image.getType() == BufferedImage.TYPE_INT_ARGB
+				&& image.getRaster().getDataBuffer() instanceof DataBufferInt buffer
+				&& buffer.getData().length == width * height) {
+			return buffer.getData();
+		}
+		return image.getRGB(0, 0, width, height, null, 0, width);
+	}
+
+	/**
+	 * @return the largest difference between the premultiplied channels of
+	 *         two pixels
+	 */
+	private static int getDelta(int first, int second) {
+		int firstAlpha = first >>> 24;
+		int secondAlpha = second >>> 24;
+		int delta = Math.abs(firstAlpha - secondAlpha);
+		for (int shift = 0; shift < 24; shift += 8) {
+			int firstChannel = ((first >> shift) & 0xff) * firstAlpha;
+			int secondChannel = ((second >> shift) & 0xff) * secondAlpha;
+			delta = Math.max(delta, (Math.abs(firstChannel - secondChannel) + 127) / 255);
+		}
+		return delta;
+	}
+}
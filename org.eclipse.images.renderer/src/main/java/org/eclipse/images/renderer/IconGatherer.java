@@ -15,9 +15,19 @@
 package org.eclipse.images.renderer;
 
 import java.io.File;
-import java.net.URI;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <p>
@@ -46,90 +56,131 @@ public class IconGatherer {
 	 */
 	public static void gatherIcons(List<IconEntry> icons, String extension, File rootDir, File iconDir, File outputBase,
 			boolean generateDisabledDirs, FolderState wizardBannerState) {
+		gatherIcons(icons::add, extension, rootDir, iconDir, outputBase, generateDisabledDirs, wizardBannerState);
+	}
 
-		List<File> listFiles = Arrays.asList(iconDir.listFiles());
-
+	/**
+	 * <p>
+	 * Searches the root resources directory for svg icons and hands every icon
+	 * to the supplied consumer as soon as it is found, so icons can be
+	 * rendered while the rest of the tree is still searched.
+	 * </p>
+	 *
+	 * @param consumer
+	 *            receives the found icons, on the calling thread
+	 * @param extension
+	 *            the file extension of the icons
+	 * @param rootDir
+	 *            the root directory of the icons (org.eclipse.ui, etc), output
+	 *            paths are relative to it
+	 * @param iconDir
+	 *            the directory to search
+	 * @param outputBase
+	 *            the directory the output paths are resolved against
+	 * @param generateDisabledDirs
+	 *            whether icons in e* folders get a disabled variant in the
+	 *            matching d* folder
+	 * @param wizardBannerState
+	 *            whether wizban folders are included, excluded or the only
+	 *            ones searched
+	 */
+	public static void gatherIcons(Consumer<IconEntry> consumer, String extension, File rootDir, File iconDir,
+			File outputBase, boolean generateDisabledDirs, FolderState wizardBannerState) {
 		String filter = System.getProperty("eclipse.svg.filter");
 		String targetIcon = System.getProperty("eclipse.svg.targetIcon");
-		
-		
-		for (File child : listFiles) {
-			if(filter != null && !child.getAbsolutePath().contains(filter)) {
-				continue;
-			}
-			
-			if (child.isDirectory()) {
-				if (child.getName().startsWith("d") && !("dgm".equals(child.getName()))) {
-					continue;
+
+		Path rootPath = rootDir.toPath().toAbsolutePath();
+		Path startPath = iconDir.toPath().toAbsolutePath();
+
+		// Output directories of the directories being visited
+		Deque<File[]> outputDirs = new ArrayDeque<>();
+
+		try {
+			Files.walkFileTree(startPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+					new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					if (!dir.equals(startPath)) {
+						String name = dir.getFileName().toString();
+						if (filter != null && !dir.toString().contains(filter)) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+
+						if (name.startsWith("d") && !("dgm".equals(name))) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+
+						if (wizardBannerState == FolderState.exclude && "wizban".equals(name)) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+					}
+
+					// Compute a relative path for the output dir once per
+					// directory
+					File outputDir = new File(outputBase, rootPath.relativize(dir).toString());
+					outputDirs.push(new File[] { outputDir, getDisabledOutputDir(dir) });
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String name = file.getFileName().toString();
+					if (filter != null && !file.toString().contains(filter)) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					if (targetIcon != null && !name.contains(targetIcon)) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					if (!name.endsWith(extension) || name.contains("@1.5x") || name.contains("@2x")) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					Path parent = file.getParent();
+					if (wizardBannerState == FolderState.only && !"wizban".equals(parent.getFileName().toString())) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					File[] dirs = outputDirs.peek();
+					consumer.accept(createIcon(rootDir, file.toFile(), dirs[0], dirs[1]));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) {
+					// Unreadable entries are skipped, like File.listFiles() does
+					return FileVisitResult.CONTINUE;
 				}
-				
-				if (wizardBannerState == FolderState.exclude && "wizban".equals(child.getName())) {
-					continue;
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+					outputDirs.pop();
+					return FileVisitResult.CONTINUE;
 				}
 
-				gatherIcons(icons, extension, rootDir, child, outputBase, generateDisabledDirs, wizardBannerState);
-				continue;
-			}
-
-			if (targetIcon != null && !child.getName().contains(targetIcon)) {
-				continue;
-			}
-
-			if (!child.getName().endsWith(extension)) {
-				continue;
-			}
-
-			if (!child.getName().endsWith(extension) || child.getName().contains("@1.5x")
-					|| child.getName().contains("@2x")) {
-				continue;
-			}
-
-			// Compute a relative path for the output dir
-			URI rootUri = rootDir.toURI();
-			URI iconUri = iconDir.toURI();
-
-			String relativePath = rootUri.relativize(iconUri).getPath();
-			File outputDir = new File(outputBase, relativePath);
-			File disabledOutputDir = null;
-
-			File parentFile = child.getParentFile();
-			if (wizardBannerState == FolderState.only && !"wizban".equals(parentFile.getName())) {
-				continue;
-			}
-
-			/*
-			 * Determine if/where to put a disabled version of the icon Eclipse
-			 * traditionally uses a prefix of d for disabled, e for enabled in
-			 * the folder name
-			 */
-			if (generateDisabledDirs && parentFile != null) {
-				String parentDirName = parentFile.getName();
-				if (parentDirName.startsWith("e")) {
-					StringBuilder builder = new StringBuilder();
-					builder.append("d");
-					builder.append(parentDirName.substring(1, parentDirName.length()));
-
-					// Disabled variant folder name
-					String disabledVariant = builder.toString();
-
-					// The parent's parent, to create the disabled directory in
-					File setParent = parentFile.getParentFile();
+				/*
+				 * Determine if/where to put a disabled version of the icon
+				 * Eclipse traditionally uses a prefix of d for disabled, e for
+				 * enabled in the folder name
+				 */
+				private File getDisabledOutputDir(Path dir) {
+					Path dirName = dir.getFileName();
+					if (!generateDisabledDirs || dirName == null || !dirName.toString().startsWith("e")) {
+						return null;
+					}
 
 					// The source directory's disabled folder
-					File disabledSource = new File(setParent, disabledVariant);
+					Path disabledSource = dir.resolveSibling("d" + dirName.toString().substring(1));
 
 					// Compute a relative path, so we can create the output
 					// folder
-					String path = rootUri.relativize(disabledSource.toURI()).getPath();
-
-					// Create the output folder, so a disabled icon is generated
-					disabledOutputDir = new File(outputBase, path);
+					return new File(outputBase, rootPath.relativize(disabledSource).toString());
 				}
-			}
-
-			IconEntry icon = createIcon(rootDir, child, outputDir, disabledOutputDir);
-
-			icons.add(icon);
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
 	}
 
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Writes the rendered icons to disk. Every output directory is created once,
+ * when its first icon is discovered, so the render threads don't check and
+ * create the same directories over and over. Files are written through a
+ * single channel and left untouched if their content didn't change, which
+ * keeps their modification time stable for downstream incremental builds.
+ * </p>
+ */
+class IconOutput {
+
+	/** The directories created so far. */
+	private final Set<File> createdDirectories = ConcurrentHashMap.newKeySet();
+
+	/** Number of file system operations issued. */
+	private final LongAdder syscalls = new LongAdder();
+
+	/** Number of bytes written. */
+	private final LongAdder bytesWritten = new LongAdder();
+
+	/** Number of files created or changed. */
+	private final LongAdder filesWritten = new LongAdder();
+
+	/** Number of files whose content was already up to date. */
+	private final LongAdder filesUnchanged = new LongAdder();
+
+	/**
+	 * <p>
+	 * Creates the output directories that were not created before. Safe to
+	 * call from several threads.
+	 * </p>
+	 *
+	 * @param directories
+	 *            the directories the icons are written to
+	 * @throws IOException
+	 *             if a directory could not be created
+	 */
+	void createDirectories(Collection<File> directories) throws IOException {
+		for (File directory : directories) {
+			if (createdDirectories.add(directory)) {
+				Files.createDirectories(directory.toPath());
+				syscalls.increment();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes a file unless it already has the given content. The parent
+	 * directory is only created if it was not created up front.
+	 * </p>
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param content
+	 *            the content of the file
+	 * @return true if the file was written, false if it was up to date
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	boolean write(File file, byte[] content) throws IOException {
+		Path path = file.toPath();
+		FileChannel channel;
+		try {
+			channel = open(path);
+		} catch (NoSuchFileException e) {
+			Files.createDirectories(path.getParent());
+			syscalls.increment();
+			channel = open(path);
+		}
+
+		try (FileChannel out = channel) {
+			syscalls.increment();
+			if (out.size() == content.length && hasContent(out, content)) {
+				filesUnchanged.increment();
+				return false;
+			}
+
+			ByteBuffer buffer = ByteBuffer.wrap(content);
+			out.position(0);
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+				syscalls.increment();
+			}
+			out.truncate(content.length);
+			syscalls.increment();
+		} finally {
+			// close
+			syscalls.increment();
+		}
+
+		bytesWritten.add(content.length);
+		filesWritten.increment();
+		return true;
+	}
+
+	/**
+	 * @return the number of file system operations issued
+	 */
+	long getSyscalls() {
+		return syscalls.sum();
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * @return the number of files created or changed
+	 */
+	long getFilesWritten() {
+		return filesWritten.sum();
+	}
+
+	/**
+	 * @return the number of files that already had the rendered content
+	 */
+	long getFilesUnchanged() {
+		return filesUnchanged.sum();
+	}
+
+	private FileChannel open(Path path) throws IOException {
+		syscalls.increment();
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Compares the content of an open file of the same size with the given
+	 * bytes.
+	 */
+	private boolean hasContent(FileChannel channel, byte[] content) throws IOException {
+		if (content.length == 0) {
+			return true;
+		}
+
+		ByteBuffer existing = ByteBuffer.allocate(content.length);
+		while (existing.hasRemaining()) {
+			syscalls.increment();
+			if (channel.read(existing) < 0) {
+				return false;
+			}
+		}
+		return Arrays.equals(existing.array(), content);
+	}
+}
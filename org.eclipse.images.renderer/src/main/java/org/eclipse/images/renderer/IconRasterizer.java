@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Dimension2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.ViewBox;
+import org.apache.batik.bridge.svg12.SVG12BridgeContext;
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.gvt.CanvasGraphicsNode;
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.renderer.ImageRenderer;
+import org.apache.batik.util.SVGConstants;
+import org.w3c.dom.svg.SVGSVGElement;
+
+/**
+ * <p>
+ * Rasterizes a single SVG document. The Batik GVT tree of the document is
+ * built once and can then be painted at any number of output sizes, e.g. for
+ * the different HiDPI scales of an icon.
+ * </p>
+ * <p>
+ * This follows what Batik's <code>ImageTranscoder</code> does for a single
+ * transcode, but keeps the GVT tree between paints.
+ * </p>
+ */
+class IconRasterizer {
+
+	/** The document being rasterized. */
+	private final SVGOMDocument document;
+
+	/** The thread's render context the tree was built with. */
+	private final RenderContext context;
+
+	/** The bridge context the GVT tree was built with. */
+	private final BridgeContext bridgeContext;
+
+	/** The root of the GVT tree. */
+	private final GraphicsNode root;
+
+	/**
+	 * <p>
+	 * Builds the GVT tree of the supplied document.
+	 * </p>
+	 *
+	 * @param context
+	 *            the render context of the calling thread
+	 * @param document
+	 *            the document to rasterize
+	 * @param viewportSize
+	 *            the viewport used to resolve relative lengths
+	 * @param userStyleSheetUri
+	 *            the URI of a user stylesheet or null
+	 * @param errorHandler
+	 *            receives errors reported by Batik
+	 * @param warningHandler
+	 *            receives messages reported by Batik
+	 */
+	IconRasterizer(RenderContext context, SVGOMDocument document, Dimension viewportSize, String userStyleSheetUri,
+			Consumer<String> errorHandler, Consumer<String> warningHandler) {
+		this.context = context;
+		this.document = document;
+
+		context.reset(viewportSize, userStyleSheetUri, errorHandler, warningHandler);
+		bridgeContext = document.isSVG12() ? new SVG12BridgeContext(context.userAgent)
+				: new BridgeContext(context.userAgent);
+
+		root = context.builder.build(bridgeContext, document);
+	}
+
+	/**
+	 * <p>
+	 * Paints the GVT tree into a new image of the given size.
+	 * </p>
+	 *
+	 * @param width
+	 *            the width of the image
+	 * @param height
+	 *            the height of the image
+	 * @return the rendered image, in non-premultiplied ARGB
+	 * @throws NoninvertibleTransformException
+	 *             if the document's view transform is degenerate
+	 */
+	BufferedImage paint(float width, float height) throws NoninvertibleTransformException {
+		SVGSVGElement svgRoot = document.getRootElement();
+
+		// Compute the transformation from user space to the output image
+		AffineTransform viewTransform;
+		String viewBox = svgRoot.getAttributeNS(null, SVGConstants.SVG_VIEW_BOX_ATTRIBUTE);
+		if (viewBox != null && viewBox.length() != 0) {
+			String aspectRatio = svgRoot.getAttributeNS(null, SVGConstants.SVG_PRESERVE_ASPECT_RATIO_ATTRIBUTE);
+			viewTransform = ViewBox.getPreserveAspectRatioTransform(svgRoot, viewBox, aspectRatio, width, height,
+					bridgeContext);
+		} else {
+			Dimension2D documentSize = bridgeContext.getDocumentSize();
+			float xscale = width / (float) documentSize.getWidth();
+			float yscale = height / (float) documentSize.getHeight();
+			float scale = Math.min(xscale, yscale);
+			viewTransform = AffineTransform.getScaleInstance(scale, scale);
+		}
+
+		AffineTransform rendererTransform;
+		CanvasGraphicsNode canvas = getCanvasGraphicsNode(root);
+		if (canvas != null) {
+			canvas.setViewingTransform(viewTransform);
+			rendererTransform = new AffineTransform();
+		} else {
+			rendererTransform = viewTransform;
+		}
+
+		int imageWidth = (int) (width + 0.5);
+		int imageHeight = (int) (height + 0.5);
+
+		ImageRenderer renderer = context.renderer;
+		try {
+			renderer.updateOffScreen(imageWidth, imageHeight);
+			renderer.setTransform(rendererTransform);
+			renderer.setTree(root);
+
+			Rectangle2D areaOfInterest = new Rectangle2D.Float(0, 0, width, height);
+			renderer.repaint(rendererTransform.createInverse().createTransformedShape(areaOfInterest));
+
+			// Convert the premultiplied off screen buffer
+			BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g2d = GraphicsUtil.createGraphics(image);
+			g2d.drawRenderedImage(renderer.getOffScreen(), new AffineTransform());
+			g2d.dispose();
+
+			return image;
+		} finally {
+			// Drop the tree and the off screen buffers, the renderer is reused
+			renderer.setTree(null);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Releases the bridge context and with it the GVT tree. The render
+	 * context stays usable for the next document.
+	 * </p>
+	 */
+	void dispose() {
+		bridgeContext.dispose();
+	}
+
+	private static CanvasGraphicsNode getCanvasGraphicsNode(GraphicsNode node) {
+		if (!(node instanceof CompositeGraphicsNode composite)) {
+			return null;
+		}
+
+		List<?> children = composite.getChildren();
+		if (children.isEmpty()) {
+			return null;
+		}
+
+		if (children.get(0) instanceof CanvasGraphicsNode canvas) {
+			return canvas;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>
+ * Derives smaller scales of an icon from a larger rendering with a separable
+ * Lanczos3 filter, and measures how much of the icon's detail survived.
+ * </p>
+ * <p>
+ * The filter works on premultiplied values, the fully transparent pixels
+ * around an icon are black and would otherwise darken its antialiased edges.
+ * </p>
+ */
+class IconResampler {
+
+	/** The radius of the filter in target pixels. */
+	private static final int RADIUS = 3;
+
+	private IconResampler() {
+	}
+
+	/**
+	 * <p>
+	 * Resamples an image to a smaller size.
+	 * </p>
+	 *
+	 * @param source
+	 *            the image to resample
+	 * @param width
+	 *            the width of the resampled image
+	 * @param height
+	 *            the height of the resampled image
+	 * @return the resampled image, of type <code>TYPE_INT_ARGB</code>
+	 */
+	static BufferedImage resample(BufferedImage source, int width, int height) {
+		int sourceWidth = source.getWidth();
+		int sourceHeight = source.getHeight();
+		int[] pixels = source.getRGB(0, 0, sourceWidth, sourceHeight, null, 0, sourceWidth);
+
+		float[] premultiplied = new float[pixels.length * 4];
+		for (int i = 0; i < pixels.length; i++) {
+			int argb = pixels[i];
+			float alpha = (argb >>> 24) / 255f;
+			premultiplied[i * 4] = argb >>> 24;
+			premultiplied[i * 4 + 1] = ((argb >> 16) & 0xff) * alpha;
+			premultiplied[i * 4 + 2] = ((argb >> 8) & 0xff) * alpha;
+			premultiplied[i * 4 + 3] = (argb & 0xff) * alpha;
+		}
+
+		// Rows first, then columns
+		Weights columns = new Weights(sourceWidth, width);
+		float[] rows = new float[width * sourceHeight * 4];
+		for (int y = 0; y < sourceHeight; y++) {
+			for (int x = 0; x < width; x++) {
+				float[] weights = columns.weights[x];
+				int in = (y * sourceWidth + columns.start[x]) * 4;
+				int out = (y * width + x) * 4;
+				for (int k = 0; k < weights.length; k++, in += 4) {
+					float weight = weights[k];
+					rows[out] += premultiplied[in] * weight;
+					rows[out + 1] += premultiplied[in + 1] * weight;
+					rows[out + 2] += premultiplied[in + 2] * weight;
+					rows[out + 3] += premultiplied[in + 3] * weight;
+				}
+			}
+		}
+
+		Weights lines = new Weights(sourceHeight, height);
+		int[] result = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			float[] weights = lines.weights[y];
+			for (int x = 0; x < width; x++) {
+				float a = 0, r = 0, g = 0, b = 0;
+				int in = (lines.start[y] * width + x) * 4;
+				for (int k = 0; k < weights.length; k++, in += width * 4) {
+					float weight = weights[k];
+					a += rows[in] * weight;
+					r += rows[in + 1] * weight;
+					g += rows[in + 2] * weight;
+					b += rows[in + 3] * weight;
+				}
+
+				int alpha = clamp(a);
+				if (alpha == 0) {
+					continue;
+				}
+
+				// The overshoot of the filter is clamped after dividing, so
+				// the colour keeps its hue
+				float unpremultiply = 255f / a;
+				result[y * width + x] = alpha << 24 | clamp(r * unpremultiply) << 16 | clamp(g * unpremultiply) << 8
+						| clamp(b * unpremultiply);
+			}
+		}
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, result, 0, width);
+		return image;
+	}
+
+	/**
+	 * <p>
+	 * Measures the detail a resampled image kept, as its total variation
+	 * against the variation of its source scaled down by the same factor.
+	 * Blurred edges and merged lines lower it, a faithful resampling keeps it
+	 * near 1.
+	 * </p>
+	 *
+	 * @param source
+	 *            the image that was resampled
+	 * @param derived
+	 *            the resampled image
+	 * @return the retained share of the detail
+	 */
+	static double getDetailRetention(BufferedImage source, BufferedImage derived) {
+		double sourceVariation = getVariation(source);
+		if (sourceVariation == 0) {
+			return 1;
+		}
+
+		double ratio = ((double) derived.getWidth() / source.getWidth()
+				+ (double) derived.getHeight() / source.getHeight()) / 2;
+		return getVariation(derived) / (sourceVariation * ratio);
+	}
+
+	/**
+	 * <p>
+	 * Sums the differences of the premultiplied channels between all
+	 * horizontally and vertically neighbouring pixels.
+	 * </p>
+	 */
+	private static double getVariation(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+		int[] premultiplied = new int[pixels.length];
+		for (int i = 0; i < pixels.length; i++) {
+			premultiplied[i] = premultiply(pixels[i]);
+		}
+
+		long variation = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixel = premultiplied[y * width + x];
+				if (x + 1 < width) {
+					variation += difference(pixel, premultiplied[y * width + x + 1]);
+				}
+				if (y + 1 < height) {
+					variation += difference(pixel, premultiplied[(y + 1) * width + x]);
+				}
+			}
+		}
+		return variation;
+	}
+
+	private static int premultiply(int argb) {
+		int alpha = argb >>> 24;
+		int r = ((argb >> 16) & 0xff) * alpha / 255;
+		int g = ((argb >> 8) & 0xff) * alpha / 255;
+		int b = (argb & 0xff) * alpha / 255;
+		return alpha << 24 | r << 16 | g << 8 | b;
+	}
+
+	private static int difference(int first, int second) {
+		int sum = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			sum += Math.abs(((first >>> shift) & 0xff) - ((second >>> shift) & 0xff));
+		}
+		return sum;
+	}
+
+	private static int clamp(float value) {
+		return Math.max(0, Math.min(255, Math.round(value)));
+	}
+
+	private static double lanczos(double x) {
+		if (x == 0) {
+			return 1;
+		}
+		if (Math.abs(x) >= RADIUS) {
+			return 0;
+		}
+		double pix = Math.PI * x;
+		return RADIUS * Math.sin(pix) * Math.sin(pix / RADIUS) / (pix * pix);
+	}
+
+	/**
+	 * <p>
+	 * The normalized filter weights of every target pixel along one axis.
+	 * Source pixels outside the image are folded into the edge pixels.
+	 * </p>
+	 */
+	private static class Weights {
+
+		final int[] start;
+
+		final float[][] weights;
+
+		Weights(int sourceSize, int targetSize) {
+			start = new int[targetSize];
+			weights = new float[targetSize][];
+
+			double scale = (double) targetSize / sourceSize;
+			double filterScale = Math.min(scale, 1);
+			double support = RADIUS / filterScale;
+
+			for (int i = 0; i < targetSize; i++) {
+				double center = (i + 0.5) / scale - 0.5;
+				int first = (int) Math.floor(center - support) + 1;
+				int last = (int) Math.ceil(center + support) - 1;
+
+				int from = Math.max(0, Math.min(sourceSize - 1, first));
+				int to = Math.max(0, Math.min(sourceSize - 1, last));
+				double[] folded = new double[to - from + 1];
+				double total = 0;
+				for (int j = first; j <= last; j++) {
+					double weight = lanczos((j - center) * filterScale);
+					folded[Math.max(from, Math.min(to, j)) - from] += weight;
+					total += weight;
+				}
+
+				start[i] = from;
+				weights[i] = new float[folded.length];
+				for (int k = 0; k < folded.length; k++) {
+					weights[i][k] = (float) (folded[k] / total);
+				}
+			}
+		}
+	}
+}
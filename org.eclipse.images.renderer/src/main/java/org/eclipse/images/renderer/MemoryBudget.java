@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * <p>
+ * Limits the memory the icons being rendered at the same time may take. Every
+ * icon reserves its estimated footprint before it is rendered and returns it
+ * when it is done, so a few large icons at high scales don't run next to each
+ * other on every thread. An icon larger than the whole budget is rendered
+ * alone. Icons reserve in the order they ask, a large icon is not starved by a
+ * stream of small ones.
+ * </p>
+ * <p>
+ * The footprint is estimated from the source size, which the Batik DOM and GVT
+ * tree grow with, and the pixel area at the largest scale, which the off
+ * screen buffers of the renderer, the rendered image and the encoded PNG grow
+ * with. The scales are painted one after another and the disabled variant is
+ * filtered in place, so only the largest scale counts.
+ * </p>
+ * <p>
+ * The peak heap of a run is sampled right before every garbage collection,
+ * where the heap is at its fullest. The memory pools peak at different times,
+ * so the sum of their own peaks would overstate it. The listeners on the
+ * garbage collectors are only registered while sampling, they would keep the
+ * plugin's class loader alive after the build otherwise.
+ * </p>
+ */
+class MemoryBudget {
+
+	/** Heap taken by the parsed document and its GVT tree per source byte. */
+	static final int DOM_BYTES_PER_SOURCE_BYTE = 16;
+
+	/**
+	 * Heap taken per rendered pixel: the renderer's working and current off
+	 * screen buffers, the converted image and at most as much for the PNG.
+	 */
+	static final int BYTES_PER_PIXEL = 16;
+
+	/** Bytes per permit of the semaphore. */
+	private static final int PERMIT_SIZE = 1024;
+
+	/** One permit per KiB of the budget. */
+	private final Semaphore permits;
+
+	/** The number of permits of the whole budget. */
+	private final int totalPermits;
+
+	/** Number of icons that had to wait for memory. */
+	private final LongAdder waits = new LongAdder();
+
+	/** The largest heap usage sampled since sampling started. */
+	private final AtomicLong peakHeap = new AtomicLong();
+
+	/**
+	 * The garbage collectors reporting to {@link #peakHeap} while sampling,
+	 * with their listeners.
+	 */
+	private final Map<NotificationEmitter, NotificationListener> gcListeners = new HashMap<>();
+
+	/**
+	 * @param bytes
+	 *            the memory the icons being rendered may take together
+	 */
+	MemoryBudget(long bytes) {
+		totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / PERMIT_SIZE));
+		permits = new Semaphore(totalPermits, true);
+	}
+
+	/**
+	 * <p>
+	 * Estimates the heap needed to render an icon.
+	 * </p>
+	 *
+	 * @param sourceBytes
+	 *            the size of the SVG source
+	 * @param area
+	 *            the native pixel area of the icon
+	 * @param scales
+	 *            the scales the icon is rendered at
+	 * @return the estimated footprint in bytes
+	 */
+	static long estimateFootprint(long sourceBytes, double area, double[] scales) {
+		double maxScale = 1;
+		for (double scale : scales) {
+			maxScale = Math.max(maxScale, scale);
+		}
+		return sourceBytes * DOM_BYTES_PER_SOURCE_BYTE + (long) (area * maxScale * maxScale * BYTES_PER_PIXEL);
+	}
+
+	/**
+	 * <p>
+	 * Reserves memory for an icon, waiting until enough of the budget is
+	 * free.
+	 * </p>
+	 *
+	 * @param footprint
+	 *            the estimated footprint of the icon in bytes
+	 * @return the reservation, to be passed to {@link #release(int)}
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting
+	 */
+	int acquire(long footprint) throws InterruptedException {
+		int reservation = (int) Math.max(1, Math.min(totalPermits, (footprint + PERMIT_SIZE - 1) / PERMIT_SIZE));
+		if (!permits.tryAcquire(reservation)) {
+			waits.increment();
+			permits.acquire(reservation);
+		}
+		return reservation;
+	}
+
+	/**
+	 * <p>
+	 * Returns the memory reserved for an icon.
+	 * </p>
+	 *
+	 * @param reservation
+	 *            the value returned by {@link #acquire(long)}
+	 */
+	void release(int reservation) {
+		permits.release(reservation);
+	}
+
+	/**
+	 * @return the budget in bytes
+	 */
+	long getBytes() {
+		return (long) totalPermits * PERMIT_SIZE;
+	}
+
+	/**
+	 * @return the number of icons that had to wait for memory
+	 */
+	long getWaits() {
+		return waits.sum();
+	}
+
+	/**
+	 * <p>
+	 * Starts sampling the peak usage of the heap, the start of a run. Must be
+	 * followed by {@link #stopSampling()}.
+	 * </p>
+	 */
+	synchronized void startSampling() {
+		peakHeap.set(getHeapUsed());
+		if (!gcListeners.isEmpty()) {
+			return;
+		}
+
+		Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(pool -> pool.getType() == MemoryType.HEAP).map(MemoryPoolMXBean::getName)
+				.collect(Collectors.toSet());
+
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (collector instanceof NotificationEmitter emitter) {
+				NotificationListener listener = (notification, handback) -> {
+					if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+							.equals(notification.getType())) {
+						sampleBeforeGc(GarbageCollectionNotificationInfo
+								.from((CompositeData) notification.getUserData()), heapPools);
+					}
+				};
+				emitter.addNotificationListener(listener, null, null);
+				gcListeners.put(emitter, listener);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops sampling the peak usage of the heap and removes the listeners
+	 * from the garbage collectors, the end of a run.
+	 * </p>
+	 */
+	synchronized void stopSampling() {
+		for (Map.Entry<NotificationEmitter, NotificationListener> gcListener : gcListeners.entrySet()) {
+			try {
+				gcListener.getKey().removeNotificationListener(gcListener.getValue());
+			} catch (ListenerNotFoundException e) {
+				// Already gone
+			}
+		}
+		gcListeners.clear();
+	}
+
+	/**
+	 * @return the peak heap usage since sampling started, sampled before
+	 *         every garbage collection while sampling and now
+	 */
+	long getPeakHeap() {
+		return peakHeap.accumulateAndGet(getHeapUsed(), Math::max);
+	}
+
+	private void sampleBeforeGc(GarbageCollectionNotificationInfo info, Set<String> heapPools) {
+		long used = 0;
+		for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+			if (heapPools.contains(pool.getKey())) {
+				used += pool.getValue().getUsed();
+			}
+		}
+		peakHeap.accumulateAndGet(used, Math::max);
+	}
+
+	private static long getHeapUsed() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,562 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * Encodes images as 8 bit RGBA PNGs. Compared to ImageIO, the deflate level,
+ * the deflate strategy and the row filters can be chosen, and only the
+ * critical chunks (IHDR, IDAT, IEND) are written.
+ * </p>
+ * <p>
+ * The Deflater, row buffers and output buffer are kept per thread and reused
+ * for every image, so encoding many small icons allocates almost nothing.
+ * Instances are immutable and can be shared between threads.
+ * </p>
+ * <p>
+ * Images too large to be kept in memory are written band by band with a
+ * {@link StripWriter}.
+ * </p>
+ */
+class PngEncoder {
+
+	/**
+	 * The row filters of the PNG specification and the adaptive selection
+	 * between them.
+	 */
+	enum Filter {
+		none, sub, up, average, paeth,
+
+		/**
+		 * Picks the filter with the smallest sum of absolute differences per
+		 * row, preferring unfiltered rows.
+		 */
+		adaptive;
+
+		static Filter parse(String name) {
+			return valueOf(name.trim().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	/** The deflate strategies supported by the encoder. */
+	enum Strategy {
+		standard(Deflater.DEFAULT_STRATEGY), filtered(Deflater.FILTERED), huffman(Deflater.HUFFMAN_ONLY);
+
+		final int deflaterStrategy;
+
+		Strategy(int deflaterStrategy) {
+			this.deflaterStrategy = deflaterStrategy;
+		}
+
+		static Strategy parse(String name) {
+			return valueOf(name.trim().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+	private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+	/** Bytes per pixel of 8 bit RGBA. */
+	private static final int BPP = 4;
+
+	/** Number of filter types defined by the PNG specification. */
+	private static final int FILTER_TYPES = 5;
+
+	/** Weight in favor of unfiltered rows during adaptive filtering. */
+	private static final int UNFILTERED_BIAS = 4;
+
+	/** Size of the IDAT chunks of a PNG written band by band. */
+	private static final int STRIP_CHUNK_SIZE = 64 * 1024;
+
+	/** Reusable per thread encoder state. */
+	private static final ThreadLocal<EncoderState> STATE = ThreadLocal.withInitial(EncoderState::new);
+
+	/**
+	 * Buffers and codec objects of one thread, grown to the largest image
+	 * encoded so far.
+	 */
+	private static final class EncoderState {
+
+		final Deflater deflater = new Deflater();
+
+		final CRC32 crc = new CRC32();
+
+		final byte[] deflateBuffer = new byte[16 * 1024];
+
+		final byte[] header = new byte[13];
+
+		/** The raw bytes of the previous and the current row. */
+		byte[] previousRow = new byte[0];
+
+		byte[] currentRow = new byte[0];
+
+		/** One filtered row per filter type, prefixed by the filter type. */
+		byte[][] filteredRows = new byte[FILTER_TYPES][0];
+
+		/** ARGB pixels of a row, used if the raster can't be read directly. */
+		int[] rowPixels = new int[0];
+
+		/** The encoded PNG. */
+		byte[] output = new byte[4096];
+
+		int outputSize;
+
+		void ensureRowCapacity(int width) {
+			int rowBytes = width * BPP;
+			if (currentRow.length < rowBytes) {
+				previousRow = new byte[rowBytes];
+				currentRow = new byte[rowBytes];
+				for (int i = 0; i < FILTER_TYPES; i++) {
+					filteredRows[i] = new byte[rowBytes + 1];
+				}
+				rowPixels = new int[width];
+			}
+		}
+
+		void ensureOutputCapacity(int additional) {
+			if (outputSize + additional > output.length) {
+				output = Arrays.copyOf(output, Math.max(output.length * 2, outputSize + additional));
+			}
+		}
+
+		void write(byte[] bytes, int offset, int length) {
+			ensureOutputCapacity(length);
+			System.arraycopy(bytes, offset, output, outputSize, length);
+			outputSize += length;
+		}
+
+		void writeInt(int value) {
+			ensureOutputCapacity(4);
+			putInt(output, outputSize, value);
+			outputSize += 4;
+		}
+	}
+
+	private final int compressionLevel;
+
+	private final Strategy strategy;
+
+	private final Filter filter;
+
+	/**
+	 * @param compressionLevel
+	 *            the deflate level from 0 (store) to 9 (smallest)
+	 * @param strategy
+	 *            the deflate strategy
+	 * @param filter
+	 *            the row filter to apply
+	 */
+	PngEncoder(int compressionLevel, Strategy strategy, Filter filter) {
+		if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Compression level must be between 0 and 9: " + compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+		this.strategy = strategy;
+		this.filter = filter;
+	}
+
+	@Override
+	public String toString() {
+		return "png(level=" + compressionLevel + ", strategy=" + strategy + ", filter=" + filter + ")";
+	}
+
+	/**
+	 * <p>
+	 * Encodes the image and writes the PNG to the supplied stream. The stream
+	 * is not closed.
+	 * </p>
+	 *
+	 * @param image
+	 *            the image to encode
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if writing to the stream fails
+	 */
+	void encode(BufferedImage image, OutputStream out) throws IOException {
+		EncoderState state = encodeToState(image);
+		out.write(state.output, 0, state.outputSize);
+	}
+
+	/**
+	 * <p>
+	 * Encodes the image into a new byte array.
+	 * </p>
+	 *
+	 * @param image
+	 *            the image to encode
+	 * @return the PNG file content
+	 */
+	byte[] encode(BufferedImage image) {
+		EncoderState state = encodeToState(image);
+		return Arrays.copyOf(state.output, state.outputSize);
+	}
+
+	/**
+	 * <p>
+	 * Starts a PNG which is written band by band. Only the current band and
+	 * one IDAT chunk are kept in memory, whatever the height of the image.
+	 * </p>
+	 *
+	 * @param out
+	 *            the stream to write to, not closed
+	 * @param width
+	 *            the width of the image
+	 * @param height
+	 *            the height of the image, the bands must add up to it
+	 * @return the writer taking the bands
+	 * @throws IOException
+	 *             if writing to the stream fails
+	 */
+	StripWriter startStrips(OutputStream out, int width, int height) throws IOException {
+		return new StripWriter(out, width, height);
+	}
+
+	/**
+	 * <p>
+	 * Writes a PNG band by band, from top to bottom. Every writer has its own
+	 * buffers, so several PNGs can be written at the same time.
+	 * </p>
+	 */
+	final class StripWriter implements Closeable {
+
+		private final OutputStream out;
+
+		private final int width;
+
+		private final int height;
+
+		private final EncoderState state = new EncoderState();
+
+		private int rows;
+
+		private StripWriter(OutputStream out, int width, int height) throws IOException {
+			this.out = out;
+			this.width = width;
+			this.height = height;
+
+			startImage(state, width, height);
+			flush();
+			startDeflater(state);
+		}
+
+		/**
+		 * <p>
+		 * Writes the next band of the image.
+		 * </p>
+		 *
+		 * @param band
+		 *            the band, as wide as the image
+		 * @param bandHeight
+		 *            the number of rows of the band to write, from its top
+		 * @throws IOException
+		 *             if writing to the stream fails
+		 */
+		void write(BufferedImage band, int bandHeight) throws IOException {
+			if (band.getWidth() != width || rows + bandHeight > height) {
+				throw new IllegalArgumentException("Band of " + band.getWidth() + "x" + bandHeight
+						+ " does not fit into the remaining rows of a " + width + "x" + height + " image");
+			}
+
+			for (int y = 0; y < bandHeight; y++) {
+				writeRow(state, band, y);
+				if (state.outputSize >= STRIP_CHUNK_SIZE) {
+					flushData();
+				}
+			}
+			rows += bandHeight;
+		}
+
+		/**
+		 * <p>
+		 * Finishes the image. The stream is not closed.
+		 * </p>
+		 *
+		 * @throws IOException
+		 *             if writing to the stream fails or rows are missing
+		 */
+		@Override
+		public void close() throws IOException {
+			if (rows != height) {
+				throw new IOException("Only " + rows + " of " + height + " rows were written");
+			}
+
+			state.deflater.finish();
+			while (!state.deflater.finished()) {
+				drain(state);
+			}
+			flushData();
+
+			writeChunk(state, IEND, state.header, 0);
+			flush();
+			state.deflater.end();
+		}
+
+		/** Writes the compressed rows so far as an IDAT chunk. */
+		private void flushData() throws IOException {
+			if (state.outputSize == 0) {
+				return;
+			}
+
+			byte[] prefix = new byte[8];
+			putInt(prefix, 0, state.outputSize);
+			System.arraycopy(IDAT, 0, prefix, 4, IDAT.length);
+			out.write(prefix);
+			out.write(state.output, 0, state.outputSize);
+
+			state.crc.reset();
+			state.crc.update(IDAT);
+			state.crc.update(state.output, 0, state.outputSize);
+			putInt(prefix, 0, (int) state.crc.getValue());
+			out.write(prefix, 0, 4);
+			state.outputSize = 0;
+		}
+
+		private void flush() throws IOException {
+			out.write(state.output, 0, state.outputSize);
+			state.outputSize = 0;
+		}
+	}
+
+	/**
+	 * Writes the signature and header of an image and resets the row
+	 * buffers.
+	 */
+	private static void startImage(EncoderState state, int width, int height) {
+		state.outputSize = 0;
+		state.ensureRowCapacity(width);
+		Arrays.fill(state.previousRow, 0, width * BPP, (byte) 0);
+
+		state.write(SIGNATURE, 0, SIGNATURE.length);
+
+		byte[] header = state.header;
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8; // bit depth
+		header[9] = 6; // color type RGBA
+		writeChunk(state, IHDR, header, header.length);
+	}
+
+	private void startDeflater(EncoderState state) {
+		Deflater deflater = state.deflater;
+		deflater.reset();
+		deflater.setLevel(compressionLevel);
+		deflater.setStrategy(strategy.deflaterStrategy);
+	}
+
+	/** Filters and compresses one row of an image. */
+	private void writeRow(EncoderState state, BufferedImage image, int y) {
+		int rowBytes = image.getWidth() * BPP;
+		readRow(image, y, state);
+
+		byte[] filtered = filterRow(state, rowBytes);
+		state.deflater.setInput(filtered, 0, rowBytes + 1);
+		while (!state.deflater.needsInput()) {
+			drain(state);
+		}
+
+		byte[] swap = state.previousRow;
+		state.previousRow = state.currentRow;
+		state.currentRow = swap;
+	}
+
+	private EncoderState encodeToState(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		EncoderState state = STATE.get();
+		startImage(state, width, height);
+
+		// The IDAT length is patched in once all rows are compressed
+		int idatStart = state.outputSize;
+		state.writeInt(0);
+		state.write(IDAT, 0, IDAT.length);
+
+		startDeflater(state);
+		for (int y = 0; y < height; y++) {
+			writeRow(state, image, y);
+		}
+
+		Deflater deflater = state.deflater;
+		deflater.finish();
+		while (!deflater.finished()) {
+			drain(state);
+		}
+
+		int idatLength = state.outputSize - idatStart - 8;
+		putInt(state.output, idatStart, idatLength);
+		state.crc.reset();
+		state.crc.update(state.output, idatStart + 4, idatLength + 4);
+		state.writeInt((int) state.crc.getValue());
+
+		writeChunk(state, IEND, state.header, 0);
+
+		return state;
+	}
+
+	private static void drain(EncoderState state) {
+		int length = state.deflater.deflate(state.deflateBuffer, 0, state.deflateBuffer.length, Deflater.NO_FLUSH);
+		state.write(state.deflateBuffer, 0, length);
+	}
+
+	/**
+	 * Reads one row of the image into the current row buffer as RGBA bytes.
+	 */
+	private static void readRow(BufferedImage image, int y, EncoderState state) {
+		int width = image.getWidth();
+		int[] pixels;
+		int offset;
+
+		Raster raster = image.getRaster();
+		if (image.getType() == BufferedImage.TYPE_INT_ARGB && raster.getDataBuffer() instanceof DataBufferInt buffer
+				&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+				&& raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0) {
+			// Read straight from the backing array, no copy needed
+			pixels = buffer.getData();
+			offset = buffer.getOffset() + y * sampleModel.getScanlineStride();
+		} else {
+			pixels = state.rowPixels;
+			offset = 0;
+			image.getRGB(0, y, width, 1, pixels, 0, width);
+		}
+
+		byte[] row = state.currentRow;
+		for (int x = 0, i = 0; x < width; x++, i += BPP) {
+			int argb = pixels[offset + x];
+			row[i] = (byte) (argb >>> 16);
+			row[i + 1] = (byte) (argb >>> 8);
+			row[i + 2] = (byte) argb;
+			row[i + 3] = (byte) (argb >>> 24);
+		}
+	}
+
+	/**
+	 * Applies the configured filter to the current row.
+	 *
+	 * @return the filtered row, prefixed by the filter type
+	 */
+	private byte[] filterRow(EncoderState state, int rowBytes) {
+		if (filter != Filter.adaptive) {
+			int type = filter.ordinal();
+			applyFilter(type, state.currentRow, state.previousRow, state.filteredRows[type], rowBytes);
+			return state.filteredRows[type];
+		}
+
+		// Minimum sum of absolute differences, the heuristic used by libpng.
+		// Icons are mostly flat colors on transparent pixels, which deflate
+		// compresses best unfiltered, so filters only win by a wide margin.
+		int bestType = 0;
+		long bestSum = Long.MAX_VALUE;
+		for (int type = 0; type < FILTER_TYPES; type++) {
+			byte[] filtered = state.filteredRows[type];
+			applyFilter(type, state.currentRow, state.previousRow, filtered, rowBytes);
+
+			long sum = 0;
+			for (int i = 1; i <= rowBytes && sum < bestSum; i++) {
+				sum += Math.abs(filtered[i]);
+			}
+
+			if (type == 0) {
+				sum /= UNFILTERED_BIAS;
+			}
+
+			if (sum < bestSum) {
+				bestSum = sum;
+				bestType = type;
+			}
+		}
+		return state.filteredRows[bestType];
+	}
+
+	private static void applyFilter(int type, byte[] row, byte[] previous, byte[] out, int rowBytes) {
+		out[0] = (byte) type;
+		switch (type) {
+		case 0:
+			System.arraycopy(row, 0, out, 1, rowBytes);
+			break;
+		case 1:
+			for (int i = 0; i < rowBytes; i++) {
+				int left = i >= BPP ? row[i - BPP] & 0xff : 0;
+				out[i + 1] = (byte) (row[i] - left);
+			}
+			break;
+		case 2:
+			for (int i = 0; i < rowBytes; i++) {
+				out[i + 1] = (byte) (row[i] - previous[i]);
+			}
+			break;
+		case 3:
+			for (int i = 0; i < rowBytes; i++) {
+				int left = i >= BPP ? row[i - BPP] & 0xff : 0;
+				out[i + 1] = (byte) (row[i] - ((left + (previous[i] & 0xff)) >>> 1));
+			}
+			break;
+		default:
+			for (int i = 0; i < rowBytes; i++) {
+				int left = i >= BPP ? row[i - BPP] & 0xff : 0;
+				int upperLeft = i >= BPP ? previous[i - BPP] & 0xff : 0;
+				out[i + 1] = (byte) (row[i] - paeth(left, previous[i] & 0xff, upperLeft));
+			}
+			break;
+		}
+	}
+
+	private static int paeth(int left, int up, int upperLeft) {
+		int estimate = left + up - upperLeft;
+		int distanceLeft = Math.abs(estimate - left);
+		int distanceUp = Math.abs(estimate - up);
+		int distanceUpperLeft = Math.abs(estimate - upperLeft);
+		if (distanceLeft <= distanceUp && distanceLeft <= distanceUpperLeft) {
+			return left;
+		}
+		return distanceUp <= distanceUpperLeft ? up : upperLeft;
+	}
+
+	private static void writeChunk(EncoderState state, byte[] type, byte[] data, int length) {
+		state.writeInt(length);
+		state.write(type, 0, type.length);
+		state.write(data, 0, length);
+
+		state.crc.reset();
+		state.crc.update(type);
+		state.crc.update(data, 0, length);
+		state.writeInt((int) state.crc.getValue());
+	}
+
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+}
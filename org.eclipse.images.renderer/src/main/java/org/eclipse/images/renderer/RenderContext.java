@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.Dimension;
+import java.awt.RenderingHints;
+import java.awt.geom.Dimension2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.gvt.renderer.ImageRenderer;
+import org.apache.batik.gvt.renderer.StaticRenderer;
+import org.apache.batik.util.XMLResourceDescriptor;
+import org.w3c.dom.svg.SVGDocument;
+
+/**
+ * <p>
+ * The Batik objects needed to parse and render icons which don't depend on a
+ * particular document: the document factory, the user agent, the GVT builder
+ * and the image renderer with its rendering hints.
+ * </p>
+ * <p>
+ * A context is confined to a single thread. With pooling enabled, every render
+ * thread keeps one context and reuses it for all icons it renders; the
+ * document specific state is reset by {@link #reset} before each document.
+ * </p>
+ */
+class RenderContext {
+
+	/** One context per render thread. */
+	private static final ThreadLocal<RenderContext> POOL = ThreadLocal.withInitial(RenderContext::new);
+
+	/**
+	 * User agent used while building the GVT tree, forwards Batik's messages
+	 * to the renderer's error handling.
+	 */
+	static final class IconUserAgent extends UserAgentAdapter {
+
+		private Dimension viewportSize;
+
+		private String userStyleSheetUri;
+
+		private Consumer<String> errorHandler;
+
+		private Consumer<String> warningHandler;
+
+		IconUserAgent() {
+			addStdFeatures();
+		}
+
+		@Override
+		public Dimension2D getViewportSize() {
+			return viewportSize;
+		}
+
+		@Override
+		public String getUserStyleSheetURI() {
+			return userStyleSheetUri;
+		}
+
+		@Override
+		public void displayError(String message) {
+			errorHandler.accept(message);
+		}
+
+		@Override
+		public void displayError(Exception e) {
+			errorHandler.accept(e.getMessage());
+		}
+
+		@Override
+		public void displayMessage(String message) {
+			warningHandler.accept(message);
+		}
+	}
+
+	final SAXSVGDocumentFactory documentFactory;
+
+	final IconUserAgent userAgent;
+
+	final GVTBuilder builder;
+
+	final ImageRenderer renderer;
+
+	private RenderContext() {
+		documentFactory = new SAXSVGDocumentFactory(XMLResourceDescriptor.getXMLParserClassName());
+		userAgent = new IconUserAgent();
+		builder = new GVTBuilder();
+		renderer = createRenderer();
+	}
+
+	/**
+	 * <p>
+	 * Returns a context for the calling thread.
+	 * </p>
+	 *
+	 * @param pooled
+	 *            if true, the thread's pooled context is returned, otherwise a
+	 *            new one is created
+	 * @return a context only to be used by the calling thread
+	 */
+	static RenderContext acquire(boolean pooled) {
+		return pooled ? POOL.get() : new RenderContext();
+	}
+
+	/**
+	 * <p>
+	 * Parses an SVG document.
+	 * </p>
+	 *
+	 * @param uri
+	 *            the URI of the document
+	 * @param stream
+	 *            the document content
+	 * @return the parsed document
+	 * @throws IOException
+	 *             if the document can't be parsed
+	 */
+	SVGDocument parse(String uri, InputStream stream) throws IOException {
+		return documentFactory.createSVGDocument(uri, stream);
+	}
+
+	/**
+	 * <p>
+	 * Prepares the context for rendering the next document.
+	 * </p>
+	 *
+	 * @param viewportSize
+	 *            the viewport used to resolve relative lengths
+	 * @param userStyleSheetUri
+	 *            the URI of a user stylesheet or null
+	 * @param errorHandler
+	 *            receives errors reported by Batik
+	 * @param warningHandler
+	 *            receives messages reported by Batik
+	 */
+	void reset(Dimension viewportSize, String userStyleSheetUri, Consumer<String> errorHandler,
+			Consumer<String> warningHandler) {
+		userAgent.viewportSize = viewportSize;
+		userAgent.userStyleSheetUri = userStyleSheetUri;
+		userAgent.errorHandler = errorHandler;
+		userAgent.warningHandler = warningHandler;
+	}
+
+	private static ImageRenderer createRenderer() {
+		ImageRenderer renderer = new StaticRenderer();
+
+		RenderingHints renderHints = renderer.getRenderingHints();
+
+		renderHints.add(
+				new RenderingHints(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE));
+
+		renderHints.add(
+				new RenderingHints(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_ALPHA_INTERPOLATION,
+				RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON));
+
+		renderHints.add(
+				new RenderingHints(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE));
+
+		renderHints.add(new RenderingHints(RenderingHints.KEY_FRACTIONALMETRICS,
+				RenderingHints.VALUE_FRACTIONALMETRICS_ON));
+
+		renderer.setRenderingHints(renderHints);
+
+		return renderer;
+	}
+}
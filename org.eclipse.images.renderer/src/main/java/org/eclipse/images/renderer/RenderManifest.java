@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * <p>
+ * Persistent record of the icons rendered by previous runs. Every rendered
+ * output file is stored with a key computed from the SVG source bytes and the
+ * render settings, so unchanged icons can be skipped and outputs of deleted
+ * sources can be removed.
+ * </p>
+ */
+class RenderManifest {
+
+	/**
+	 * Version of the rendering pipeline, part of every render key. Bump it
+	 * whenever a change to the renderer alters the produced files.
+	 */
+	static final String RENDERER_VERSION = "2";
+
+	/** Separator between the columns of a manifest line. */
+	private static final char SEPARATOR = '\t';
+
+	/** The file the manifest is read from and written to. */
+	private final File manifestFile;
+
+	/** The directory all paths in the manifest are relative to. */
+	private final Path baseDir;
+
+	/** Entries of the previous run, keyed by relative output path. */
+	private final Map<String, ManifestEntry> previousEntries;
+
+	/** Entries of the current run, keyed by relative output path. */
+	private final Map<String, ManifestEntry> currentEntries = new ConcurrentHashMap<>();
+
+	/** Number of icons which were up to date and skipped. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of icons which had to be rendered. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * A single rendered output, the source it was rendered from and the key of
+	 * the render inputs.
+	 */
+	private record ManifestEntry(String key, String source) {
+	}
+
+	private RenderManifest(File manifestFile, Path baseDir, Map<String, ManifestEntry> previousEntries) {
+		this.manifestFile = manifestFile;
+		this.baseDir = baseDir;
+		this.previousEntries = previousEntries;
+	}
+
+	/**
+	 * <p>
+	 * Loads the manifest written by a previous run. A missing or unreadable
+	 * manifest results in an empty one, causing every icon to be rendered.
+	 * </p>
+	 *
+	 * @param manifestFile
+	 *            the manifest file
+	 * @param baseDir
+	 *            the directory paths are stored relative to
+	 * @param log
+	 *            the logger used to report problems
+	 * @return the loaded manifest
+	 */
+	static RenderManifest load(File manifestFile, File baseDir, Log log) {
+		Map<String, ManifestEntry> entries = new ConcurrentHashMap<>();
+
+		if (manifestFile.exists()) {
+			try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] columns = line.split(String.valueOf(SEPARATOR));
+					if (columns.length != 3) {
+						continue;
+					}
+
+					entries.put(columns[2], new ManifestEntry(columns[0], columns[1]));
+				}
+			} catch (IOException e) {
+				log.warn("Could not read render manifest, rendering all icons: " + e.getMessage());
+				entries.clear();
+			}
+		}
+
+		return new RenderManifest(manifestFile, baseDir.getAbsoluteFile().toPath(), entries);
+	}
+
+	/**
+	 * <p>
+	 * Computes the render key for an icon, a hash over everything that
+	 * influences the rendered output.
+	 * </p>
+	 *
+	 * @param svgBytes
+	 *            the content of the SVG source
+	 * @param scale
+	 *            the output scale
+	 * @param settings
+	 *            the other render settings, e.g. the stylesheet theme and the
+	 *            PNG encoder configuration
+	 * @param stylesheetBytes
+	 *            the content of the compiled CSS the icon is rendered with or
+	 *            null
+	 * @return the render key as a hex string
+	 */
+	static String computeKey(byte[] svgBytes, double scale, String settings, byte[] stylesheetBytes) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+
+		String header = RENDERER_VERSION + SEPARATOR + scale + SEPARATOR + settings + SEPARATOR;
+		digest.update(header.getBytes(StandardCharsets.UTF_8));
+		digest.update(svgBytes);
+		if (stylesheetBytes != null) {
+			digest.update(stylesheetBytes);
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * <p>
+	 * Checks whether all outputs of an icon exist and were rendered with the
+	 * supplied key. Counts a cache hit or miss and carries over the entries of
+	 * up to date outputs.
+	 * </p>
+	 *
+	 * @param key
+	 *            the current render key of the icon
+	 * @param outputs
+	 *            the files the icon is rendered to
+	 * @return true if rendering can be skipped
+	 */
+	boolean isUpToDate(String key, List<File> outputs) {
+		for (File output : outputs) {
+			ManifestEntry entry = previousEntries.get(relativize(output));
+			if (entry == null || !entry.key().equals(key) || !output.exists()) {
+				misses.increment();
+				return false;
+			}
+		}
+
+		for (File output : outputs) {
+			String path = relativize(output);
+			currentEntries.put(path, previousEntries.get(path));
+		}
+
+		hits.increment();
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Records the outputs of a successfully rendered icon.
+	 * </p>
+	 *
+	 * @param key
+	 *            the render key the outputs were rendered with
+	 * @param source
+	 *            the SVG source of the icon
+	 * @param outputs
+	 *            the rendered files
+	 */
+	void record(String key, File source, List<File> outputs) {
+		ManifestEntry entry = new ManifestEntry(key, relativize(source));
+		for (File output : outputs) {
+			currentEntries.put(relativize(output), entry);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Forgets the outputs of a removed icon.
+	 * </p>
+	 *
+	 * @param outputs
+	 *            the files the icon was rendered to
+	 */
+	void remove(List<File> outputs) {
+		for (File output : outputs) {
+			currentEntries.remove(relativize(output));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Deletes outputs whose sources were removed since the previous run.
+	 * Entries of icons which were not part of this run, e.g. because of an
+	 * icon filter, are kept as long as their sources exist.
+	 * </p>
+	 *
+	 * @param log
+	 *            the logger used to report deleted outputs
+	 * @return the number of deleted outputs
+	 */
+	int prune(Log log) {
+		int pruned = 0;
+		for (Map.Entry<String, ManifestEntry> entry : previousEntries.entrySet()) {
+			String output = entry.getKey();
+			if (currentEntries.containsKey(output)) {
+				continue;
+			}
+
+			if (baseDir.resolve(entry.getValue().source()).toFile().exists()) {
+				currentEntries.put(output, entry.getValue());
+				continue;
+			}
+
+			File outputFile = baseDir.resolve(output).toFile();
+			if (outputFile.exists() && !outputFile.delete()) {
+				log.warn("Could not delete output of removed icon: " + outputFile.getAbsolutePath());
+				continue;
+			}
+
+			log.info("Deleted output of removed icon: " + output);
+			pruned++;
+		}
+		return pruned;
+	}
+
+	/**
+	 * <p>
+	 * Writes the entries of the current run to disk, sorted by output path.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             if the manifest could not be written
+	 */
+	void save() throws IOException {
+		manifestFile.getParentFile().mkdirs();
+
+		Map<String, ManifestEntry> sorted = new TreeMap<>(currentEntries);
+		try (BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, ManifestEntry> entry : sorted.entrySet()) {
+				writer.write(entry.getValue().key());
+				writer.write(SEPARATOR);
+				writer.write(entry.getValue().source());
+				writer.write(SEPARATOR);
+				writer.write(entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of icons skipped because they were up to date
+	 */
+	long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of icons that had to be rendered
+	 */
+	long getMisses() {
+		return misses.sum();
+	}
+
+	private String relativize(File file) {
+		return baseDir.relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+	}
+}
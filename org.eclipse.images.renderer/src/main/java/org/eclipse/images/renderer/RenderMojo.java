@@ -1,5 +1,5 @@
 /*******************************************************************************
- * (c) Copyright 2015 l33t labs LLC and others.
+ * (c) Copyright 2015, 2026 l33t labs LLC and others.
  * 
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,33 +14,46 @@
 
 package org.eclipse.images.renderer;
 
-import java.awt.RenderingHints;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ForkJoinPool;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 
 import javax.imageio.ImageIO;
 
-import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
-import org.apache.batik.gvt.renderer.ImageRenderer;
-import org.apache.batik.gvt.renderer.StaticRenderer;
-import org.apache.batik.transcoder.ErrorHandler;
-import org.apache.batik.transcoder.TranscoderException;
-import org.apache.batik.transcoder.TranscoderInput;
-import org.apache.batik.transcoder.TranscoderOutput;
-import org.apache.batik.transcoder.image.PNGTranscoder;
-import org.apache.batik.util.XMLResourceDescriptor;
+import org.apache.batik.anim.dom.SVGOMDocument;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -48,16 +61,14 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
+import org.eclipse.images.renderer.RenderReport.IconTimer;
+import org.eclipse.images.renderer.RenderReport.Phase;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.svg.SVGDocument;
 
-import com.jhlabs.image.ContrastFilter;
-import com.jhlabs.image.GrayscaleFilter;
-import com.jhlabs.image.HSBAdjustFilter;
-
 /**
  * Mojo which renders SVG icons into PNG format.
  */
@@ -68,7 +79,21 @@ public class RenderMojo extends AbstractMojo {
 	/** Maven logger */
 	Log log;
 
-	/** Used for high resolution (HiDPI) rendering support. */
+	/**
+	 * The outputs of a rendered icon, taken over by identical icons. The PNGs
+	 * are null if they can be read back from the written files.
+	 */
+	private record SharedOutput(List<File> files, byte[][] pngs) {
+
+		byte[] read(int variant) throws IOException {
+			return pngs != null ? pngs[variant] : Files.readAllBytes(files.get(variant).toPath());
+		}
+	}
+
+	/**
+	 * Used for high resolution (HiDPI) rendering support, a comma separated
+	 * list of scales to render.
+	 */
 	public static final String ECLIPSE_SVG_SCALE = "eclipse.svg.scale";
 
 	/** Used to specify the number of render threads when rasterizing icons. */
@@ -95,47 +120,114 @@ public class RenderMojo extends AbstractMojo {
 	 */
 	public static final String REGENERATE_STYLES = "eclipse.svg.stylesheet.regenerate";
 
-	/** A list of directories with svg sources to rasterize. */
-	private List<IconEntry> icons;
+	/**
+	 * Used to specify whether the stylesheets of the theme are compiled with a
+	 * single SASS invocation before rendering.
+	 */
+	public static final String STYLESHEET_BATCH = "eclipse.svg.stylesheet.batch";
 
-	/** The number of threads to use when rendering icons. */
-	private int threads;
+	/**
+	 * Used to specify whether icons that did not change since the last run are
+	 * skipped.
+	 */
+	public static final String INCREMENTAL = "eclipse.svg.incremental";
 
-	private final class CustomTranscoder extends PNGTranscoder {
-		@Override
-		protected ImageRenderer createRenderer() {
-			ImageRenderer renderer = new StaticRenderer();
+	/**
+	 * Used to specify whether the icons of every icon root and fragment are
+	 * written into a jar instead of single files.
+	 */
+	public static final String ARCHIVE = "eclipse.svg.archive";
+
+	/**
+	 * Used to specify whether the icons of every icon root are also packed
+	 * into atlas images with an index, one set per scale.
+	 */
+	public static final String ATLAS = "eclipse.svg.atlas";
+
+	/**
+	 * Used to specify whether the cleaned documents of the icons are cached
+	 * in a binary form, so unchanged sources are not parsed again.
+	 */
+	public static final String DOCUMENT_CACHE = "eclipse.svg.documentcache";
+
+	/**
+	 * Used to specify whether icons with identical sources are rendered once
+	 * and share the output.
+	 */
+	public static final String DEDUPLICATE = "eclipse.svg.deduplicate";
+
+	/**
+	 * Used to specify the memory, in megabytes, the icons being rendered at
+	 * the same time may take together.
+	 */
+	public static final String MEMORY_BUDGET = "eclipse.svg.memorybudget";
+
+	/**
+	 * Used to specify whether the smaller scales of an icon are derived from
+	 * its largest scale instead of being painted.
+	 */
+	public static final String RESAMPLE = "eclipse.svg.resample";
 
-			RenderingHints renderHints = renderer.getRenderingHints();
+	/**
+	 * Used to specify the smallest width and height, in pixels, of an icon
+	 * derived by resampling. Smaller icons are painted.
+	 */
+	public static final String RESAMPLE_MIN_SIZE = "eclipse.svg.resample.minsize";
 
-			renderHints.add(
-					new RenderingHints(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF));
+	/**
+	 * Used to specify the share of the detail a resampled icon must keep,
+	 * otherwise it is painted.
+	 */
+	public static final String RESAMPLE_MIN_RETENTION = "eclipse.svg.resample.minretention";
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY));
+	/**
+	 * Attributes in which Inkscape records the file an icon was saved as or
+	 * exported to, they don't change the rendered output.
+	 */
+	private static final Pattern FILE_METADATA = Pattern.compile(
+			"\\s(?:sodipodi:docname|inkscape:export-filename|inkscape:export-xdpi|inkscape:export-ydpi)=\"[^\"]*\"");
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE));
+	/**
+	 * Used to specify the deflate level of written PNGs, from 0 (fastest) to 9
+	 * (smallest).
+	 */
+	public static final String PNG_COMPRESSION = "eclipse.svg.png.compression";
 
-			renderHints.add(
-					new RenderingHints(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC));
+	/** Used to specify the deflate strategy of written PNGs. */
+	public static final String PNG_STRATEGY = "eclipse.svg.png.strategy";
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_ALPHA_INTERPOLATION,
-					RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY));
+	/** Used to specify the row filter of written PNGs. */
+	public static final String PNG_FILTER = "eclipse.svg.png.filter";
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON));
+	/**
+	 * Used to specify whether the render threads reuse their Batik parser,
+	 * user agent and renderer across icons.
+	 */
+	public static final String POOLING = "eclipse.svg.pooling";
 
-			renderHints.add(
-					new RenderingHints(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY));
+	/**
+	 * Used to specify whether a report with the time spent in each phase of
+	 * rendering every icon is written to the target directory.
+	 */
+	public static final String REPORT = "eclipse.svg.report";
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE));
+	/**
+	 * Used to specify the number of seconds between progress summary lines, 0
+	 * disables them.
+	 */
+	public static final String PROGRESS_INTERVAL = "eclipse.svg.progress.interval";
 
-			renderHints.add(new RenderingHints(RenderingHints.KEY_FRACTIONALMETRICS,
-					RenderingHints.VALUE_FRACTIONALMETRICS_ON));
+	/**
+	 * Used to specify a file that per icon details are written to instead of
+	 * the debug log.
+	 */
+	public static final String DETAIL_LOG = "eclipse.svg.detaillog";
 
-			renderer.setRenderingHints(renderHints);
+	/** The icons found so far, made safe for parallel access. */
+	private List<IconEntry> icons;
 
-			return renderer;
-		}
-	}
+	/** The number of threads to use when rendering icons. */
+	private int threads;
 
 	/**
 	 * A counter used to keep track of the number of rendered icons. Atomic is
@@ -146,8 +238,29 @@ public class RenderMojo extends AbstractMojo {
 	/** List of icons that failed to render, made safe for parallel access */
 	List<IconEntry> failedIcons = Collections.synchronizedList(new ArrayList<IconEntry>(5));
 
-	/** The amount of scaling to apply to rasterized images. */
-	private double outputScale;
+	/** The scales to apply to rasterized images, each rendered separately. */
+	private double[] outputScales;
+
+	/** The directory the output directories are created in. */
+	private String workingDirectory;
+
+	/** The directory the SVG sources are taken from. */
+	private File sourceRoot;
+
+	/**
+	 * If true, icons are rendered even if the render manifest has them up to
+	 * date, used when sources are known to have changed.
+	 */
+	private volatile boolean forceRender;
+
+	/** The directory name where the PNGs are written to. */
+	private String targetDir;
+
+	/**
+	 * If true, high resolution icons are put into separate fragments instead
+	 * of next to the low resolution icons.
+	 */
+	private boolean createFragments;
 
 	/** An absolute path to a stylesheet to use when rendering icons. */
 	private String stylesheetName;
@@ -158,6 +271,93 @@ public class RenderMojo extends AbstractMojo {
 	 */
 	private boolean regenerateCss = false;
 
+	/** Compiles the SASS stylesheets of the theme, null without a theme. */
+	private StylesheetCompiler stylesheetCompiler;
+
+	/**
+	 * Record of previously rendered icons, used to skip unchanged icons. Null
+	 * if incremental rendering is disabled.
+	 */
+	private RenderManifest manifest;
+
+	/** Cleaned documents of previously parsed sources, null if disabled. */
+	private DocumentCache documentCache;
+
+	/**
+	 * The outputs of the icons rendered in this run by their content key and
+	 * scale, null if identical icons are rendered separately.
+	 */
+	private ConcurrentMap<String, CompletableFuture<SharedOutput>> sharedOutputs;
+
+	/** Number of icon scales written from the outputs of an identical icon. */
+	private final LongAdder sharedRenders = new LongAdder();
+
+	/** Limits the memory of the icons rendered at the same time. */
+	private MemoryBudget memoryBudget;
+
+	/** If true, the smaller scales of an icon are derived from its largest. */
+	private boolean resample;
+
+	/** The smallest width and height of an icon derived by resampling. */
+	private int resampleMinSize = 24;
+
+	/** The share of the detail a resampled icon must keep. */
+	private double resampleMinRetention = 0.85;
+
+	/** Number of icon scales derived by resampling. */
+	private final LongAdder resampledScales = new LongAdder();
+
+	/** Number of icon scales painted as their resampling fell short. */
+	private final LongAdder resampleRejects = new LongAdder();
+
+	/** The encoder used to write rendered icons. */
+	private PngEncoder pngEncoder;
+
+	/** Writes the encoded icons to the output directories. */
+	private IconOutput output;
+
+	/** Writes the encoded icons into jars, null if single files are written. */
+	private IconArchives archives;
+
+	/** If true, the icons of every icon root are packed into atlases. */
+	private boolean atlas;
+
+	/**
+	 * Description of the settings which influence the output files, part of
+	 * the render key of every icon.
+	 */
+	private String renderSettings;
+
+	/**
+	 * If true, every render thread reuses its {@link RenderContext} instead of
+	 * creating one per icon.
+	 */
+	private boolean pooling = true;
+
+	/**
+	 * The threads the icons are rendered on, holding their render contexts.
+	 * Shut down at the end of the run unless {@link #keepRenderThreads()}.
+	 */
+	private ExecutorService renderExecutor;
+
+	/** Phase timings of the rendered icons, null if no report is written. */
+	private RenderReport report;
+
+	/** Counts the finished icons and collects the messages of the run. */
+	private RenderProgress progress;
+
+	/** The number of seconds between progress summary lines. */
+	private int progressInterval = 10;
+
+	/** The file per icon details are written to, null for the debug log. */
+	private File detailLog;
+
+	/** Time spent acquiring render contexts, summed over all threads. */
+	private final LongAdder setupNanos = new LongAdder();
+
+	/** Number of render contexts acquired, one per rendered icon. */
+	private final LongAdder setupCount = new LongAdder();
+
 	/**
 	 * @return the number of icons rendered at the time of the call
 	 */
@@ -179,11 +379,48 @@ public class RenderMojo extends AbstractMojo {
 	 *
 	 * @param icon
 	 *            the icon to render
-	 * @param grayFilter
-	 * @param desaturator
-	 * @param decontrast
 	 */
 	public void rasterize(IconEntry icon) {
+		rasterize(icon, null);
+	}
+
+	/**
+	 * <p>
+	 * Generates raster images from the input SVG vector image whose source
+	 * was already read.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to render
+	 * @param svgBytes
+	 *            the source of the icon, null to read it
+	 */
+	public void rasterize(IconEntry icon, byte[] svgBytes) {
+		IconTimer timer = report != null ? new IconTimer() : IconTimer.DISABLED;
+		try {
+			rasterize(icon, svgBytes, timer);
+		} finally {
+			if (report != null && icon != null) {
+				report.add(icon, timer);
+			}
+			progress.iconDone();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Generates raster images from the input SVG vector image, recording the
+	 * time spent in each phase.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to render
+	 * @param svgBytes
+	 *            the source of the icon, null to read it
+	 * @param timer
+	 *            the timer of the icon
+	 */
+	private void rasterize(IconEntry icon, byte[] svgBytes, IconTimer timer) {
 		if (icon == null) {
 			log.error("Null icon definition, skipping.");
 			failedIcons.add(icon);
@@ -196,29 +433,132 @@ public class RenderMojo extends AbstractMojo {
 			return;
 		}
 
-		if (!icon.inputPath.exists()) {
-			log.error("Input path specified does not exist, skipping: " + icon.nameBase);
-			failedIcons.add(icon);
+		if (svgBytes == null) {
+			if (!icon.inputPath.exists()) {
+				log.error("Input path specified does not exist, skipping: " + icon.nameBase);
+				failedIcons.add(icon);
+				return;
+			}
+
+			try {
+				svgBytes = Files.readAllBytes(icon.inputPath.toPath());
+			} catch (IOException e) {
+				log.error("Error reading SVG icon document: " + e.getMessage());
+				failedIcons.add(icon);
+				return;
+			}
+		}
+
+		// Skip scales whose source and render settings did not change
+		Map<Double, String> scales = new LinkedHashMap<>();
+		byte[] stylesheetBytes = manifest != null ? readStylesheet(icon) : null;
+		for (double scale : outputScales) {
+			String renderKey = null;
+			if (manifest != null) {
+				renderKey = RenderManifest.computeKey(svgBytes, scale, renderSettings, stylesheetBytes);
+				if (!forceRender && manifest.isUpToDate(renderKey, getOutputFiles(icon, scale))) {
+					progress.detail(() -> "Up to date, skipping: " + icon.nameBase + " at " + scale + "x");
+					continue;
+				}
+			}
+
+			scales.put(scale, renderKey);
+		}
+
+		timer.lap(Phase.read);
+
+		if (scales.isEmpty()) {
 			return;
 		}
 
-		if (icon.outputPath != null && !icon.outputPath.exists()) {
-			icon.outputPath.mkdirs();
+		// Identical icons are rendered by the first thread that gets to them,
+		// the others take over its outputs
+		Map<Double, CompletableFuture<SharedOutput>> leading = new HashMap<>();
+		Map<Double, CompletableFuture<SharedOutput>> following = new LinkedHashMap<>();
+		if (sharedOutputs != null) {
+			String contentKey = getContentKey(icon, svgBytes);
+			for (double scale : scales.keySet()) {
+				CompletableFuture<SharedOutput> shared = new CompletableFuture<>();
+				CompletableFuture<SharedOutput> existing = sharedOutputs.putIfAbsent(contentKey + "@" + scale, shared);
+				if (existing == null) {
+					leading.put(scale, shared);
+				} else {
+					following.put(scale, existing);
+				}
+			}
+		}
+
+		Map<Double, String> renderScales = new LinkedHashMap<>(scales);
+		renderScales.keySet().removeAll(following.keySet());
+		try {
+			if (!renderScales.isEmpty() && !render(icon, svgBytes, renderScales, leading, timer)) {
+				return;
+			}
+		} finally {
+			// Lets the followers render themselves if this icon failed
+			for (CompletableFuture<SharedOutput> shared : leading.values()) {
+				shared.complete(null);
+			}
+		}
+
+		// This thread renders all scales it leads before it waits for others,
+		// so two threads never wait for each other
+		Map<Double, String> failedScales = new LinkedHashMap<>();
+		for (Map.Entry<Double, CompletableFuture<SharedOutput>> shared : following.entrySet()) {
+			double scale = shared.getKey();
+			SharedOutput sharedOutput = shared.getValue().join();
+			if (sharedOutput == null) {
+				failedScales.put(scale, scales.get(scale));
+				continue;
+			}
+
+			if (!writeShared(icon, scale, sharedOutput, timer)) {
+				return;
+			}
+			sharedRenders.increment();
+			rendered(icon, scale, scales.get(scale));
 		}
 
-		if (icon.disabledPath != null && !icon.disabledPath.exists()) {
-			icon.disabledPath.mkdirs();
+		if (!failedScales.isEmpty()) {
+			render(icon, svgBytes, failedScales, Collections.emptyMap(), timer);
 		}
+	}
+
+	/**
+	 * <p>
+	 * Parses an icon and renders it at the given scales.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to render
+	 * @param svgBytes
+	 *            the content of the icon's input file
+	 * @param scales
+	 *            the scales to render, with their render keys
+	 * @param leading
+	 *            receive the outputs of scales identical icons wait for
+	 * @param timer
+	 *            the timer of the icon
+	 * @return true if the icon was rendered at all scales, false otherwise
+	 */
+	private boolean render(IconEntry icon, byte[] svgBytes, Map<Double, String> scales,
+			Map<Double, CompletableFuture<SharedOutput>> leading, IconTimer timer) {
+		// Get the parser and renderer of this thread
+		long setupStart = System.nanoTime();
+		RenderContext context = RenderContext.acquire(pooling);
+		setupNanos.add(System.nanoTime() - setupStart);
+		setupCount.increment();
 
 		// Create the document to rasterize
-		SVGDocument svgDocument = generateSVGDocument(icon);
+		SVGDocument svgDocument = documentCache != null ? loadSVGDocument(context, icon, svgBytes)
+				: generateSVGDocument(context, icon, svgBytes);
+		timer.lap(Phase.parse);
 
 		if (svgDocument == null) {
-			return;
+			return false;
 		}
 
-		// Determine the output sizes (native, double, quad)
-		// We render at quad size and resample down for output
+		// Determine the native size, the output sizes are derived from it
 		Element svgDocumentNode = svgDocument.getDocumentElement();
 		String nativeWidthStr = svgDocumentNode.getAttribute("width");
 		String nativeHeightStr = svgDocumentNode.getAttribute("height");
@@ -240,13 +580,13 @@ public class RenderMojo extends AbstractMojo {
 				if ("".equals(viewBoxStr)) {
 					log.error("Icon defines neither width/height nor a viewBox, skipping: " + icon.nameBase);
 					failedIcons.add(icon);
-					return;
+					return false;
 				}
 				String[] splitted = viewBoxStr.split(" ");
 				if (splitted.length != 4) {
 					log.error("Dimension could not be parsed. Skipping: " + icon.nameBase);
 					failedIcons.add(icon);
-					return;
+					return false;
 				}
 				String widthStr = splitted[2];
 				widthStr = stripOffPx(widthStr);
@@ -259,239 +599,574 @@ public class RenderMojo extends AbstractMojo {
 		} catch (NumberFormatException e) {
 			log.error("Dimension could not be parsed ( " + e.getMessage() + "), skipping: " + icon.nameBase);
 			failedIcons.add(icon);
-			return;
+			return false;
 		}
 
-		int outputWidth = (int) (nativeWidth * outputScale);
-		int outputHeight = (int) (nativeHeight * outputScale);
-
-		// Guesstimate the PNG size in memory, BAOS will enlarge if necessary.
-		int outputInitSize = nativeWidth * nativeHeight * 4 + 1024;
-		ByteArrayOutputStream iconOutput = new ByteArrayOutputStream(outputInitSize);
-
-		// Render to SVG
+		// Build the GVT tree once and paint it at every requested scale
+		double firstScale = scales.keySet().iterator().next();
+		IconRasterizer rasterizer;
 		try {
-			log.info(Thread.currentThread().getName() + " " + " Rasterizing: " + icon.nameBase + ".png at "
-					+ outputWidth + "x" + outputHeight);
-
-			TranscoderInput svgInput = new TranscoderInput(svgDocument);
-
-			boolean success = renderIcon(icon, outputWidth, outputHeight, svgInput, iconOutput);
-
-			if (!success) {
-				log.error("Failed to render icon: " + icon.nameBase + ".png, skipping.");
-				failedIcons.add(icon);
-				return;
-			} else {
-				counter.getAndAdd(1);
-			}
+			String userStyleSheetUri = prepareDocument(icon, svgDocument, timer);
+			Dimension viewportSize = new Dimension((int) (nativeWidth * firstScale),
+					(int) (nativeHeight * firstScale));
+
+			rasterizer = new IconRasterizer(context, (SVGOMDocument) svgDocument, viewportSize, userStyleSheetUri,
+					message -> log.error("Icon: " + icon + " - ERROR: " + message),
+					message -> progress.warning(icon, message));
+			timer.lap(Phase.transcode);
 		} catch (Exception e) {
 			log.error("Failed to render icon: " + e.getMessage(), e);
 			failedIcons.add(icon);
-			return;
+			return false;
 		}
 
-		// Generate a buffered image from Batik's png output
-		byte[] imageBytes = iconOutput.toByteArray();
-		ByteArrayInputStream imageInputStream = new ByteArrayInputStream(imageBytes);
-
-		BufferedImage inputImage = null;
-		try {
-			inputImage = ImageIO.read(imageInputStream);
-
-			if (inputImage == null) {
-				log.error(
-						"Failed to generate BufferedImage from rendered icon, ImageIO returned null: " + icon.nameBase);
-				failedIcons.add(icon);
-				return;
-			}
-		} catch (IOException e2) {
-			log.error(
-					"Failed to generate BufferedImage from rendered icon: " + icon.nameBase + " - " + e2.getMessage());
-			failedIcons.add(icon);
-			return;
+		// The largest scale is painted first, the smaller ones can be derived
+		// from it
+		List<Double> order = new ArrayList<>(scales.keySet());
+		if (resample) {
+			order.sort(Comparator.reverseOrder());
 		}
 
-		writeIcon(icon, outputWidth, outputHeight, inputImage);
-
 		try {
-			if (icon.disabledPath != null) {
-				GrayscaleFilter grayFilter = new GrayscaleFilter();
-
-				HSBAdjustFilter desaturator = new HSBAdjustFilter();
-				desaturator.setSFactor(0.0f);
-
-				ContrastFilter decontrast = new ContrastFilter();
-				decontrast.setBrightness(2.9f);
-				decontrast.setContrast(0.2f);
-
-				BufferedImage desaturated16 = desaturator.filter(grayFilter.filter(inputImage, null), null);
+			BufferedImage largest = null;
+			for (double scale : order) {
+				BufferedImage image = largest != null
+						? deriveIcon(icon, largest, (int) (nativeWidth * scale), (int) (nativeHeight * scale), timer)
+						: null;
+				if (image == null) {
+					image = paintIcon(icon, rasterizer, scale, nativeWidth, nativeHeight, timer);
+					if (image == null) {
+						return false;
+					}
+					if (resample && largest == null && order.size() > 1) {
+						// The disabled variant is filtered in place
+						largest = icon.disabledPath != null ? copy(image) : image;
+					}
+				}
 
-				BufferedImage decontrasted = decontrast.filter(desaturated16, null);
+				byte[][] pngs = writeVariants(icon, scale, image, timer);
+				if (pngs == null) {
+					return false;
+				}
 
-				String outputName = getOutputName(icon.nameBase);
-				ImageIO.write(decontrasted, "PNG", new File(icon.disabledPath, outputName));
+				// The written files are read back, the PNGs are only kept if
+				// they are written into archives
+				CompletableFuture<SharedOutput> shared = leading.get(scale);
+				if (shared != null) {
+					shared.complete(new SharedOutput(getOutputFiles(icon, scale), archives != null ? pngs : null));
+				}
+				rendered(icon, scale, scales.get(scale));
 			}
-		} catch (Exception e1) {
-			log.error("Failed to render disabled icon: " + icon.nameBase, e1);
-			failedIcons.add(icon);
+		} finally {
+			rasterizer.dispose();
 		}
+		return true;
 	}
 
-	private String stripOffPx(String dimensionString) {
-		if (dimensionString.endsWith("px")) {
-			return dimensionString.substring(0, dimensionString.length() - 2);
+	/**
+	 * <p>
+	 * Counts an icon rendered at a scale and records its outputs.
+	 * </p>
+	 */
+	private void rendered(IconEntry icon, double scale, String renderKey) {
+		counter.getAndAdd(1);
+
+		if (manifest != null) {
+			manifest.record(renderKey, icon.inputPath, getOutputFiles(icon, scale));
 		}
-		return dimensionString;
 	}
 
 	/**
 	 * <p>
-	 * Generates a Batik SVGDocument for the supplied IconEntry's input file.
+	 * Paints an icon at a single scale.
 	 * </p>
 	 *
 	 * @param icon
-	 *            the icon entry to generate an SVG document for
-	 *
-	 * @return a batik SVGDocument instance or null if one could not be
-	 *         generated
+	 *            the icon to render
+	 * @param rasterizer
+	 *            the rasterizer holding the icon's GVT tree
+	 * @param scale
+	 *            the scale to render at
+	 * @param nativeWidth
+	 *            the width of the icon at scale 1
+	 * @param nativeHeight
+	 *            the height of the icon at scale 1
+	 * @param timer
+	 *            the timer of the icon
+	 * @return the painted image, or null if the icon failed
 	 */
-	private SVGDocument generateSVGDocument(IconEntry icon) {
-		// Load the document and find out the native height/width
-		// We reuse the document later for rasterization
-		SVGDocument svgDocument = null;
-		try (FileInputStream iconDocumentStream = new FileInputStream(icon.inputPath)) {
+	private BufferedImage paintIcon(IconEntry icon, IconRasterizer rasterizer, double scale, int nativeWidth,
+			int nativeHeight, IconTimer timer) {
+		int outputWidth = (int) (nativeWidth * scale);
+		int outputHeight = (int) (nativeHeight * scale);
 
-			String parser = XMLResourceDescriptor.getXMLParserClassName();
-			SAXSVGDocumentFactory f = new SAXSVGDocumentFactory(parser);
+		// Render to SVG
+		BufferedImage inputImage;
+		try {
+			progress.detail(() -> Thread.currentThread().getName() + " " + " Rasterizing: " + icon.nameBase
+					+ ".png at " + outputWidth + "x" + outputHeight);
+			timer.skip();
 
-			// What kind of URI is batik expecting here??? the docs don't say
-			svgDocument = f.createSVGDocument("file://" + icon.nameBase + ".svg", iconDocumentStream);
-		} catch (Exception e3) {
-			log.error("Error parsing SVG icon document: " + e3.getMessage());
+			inputImage = renderIcon(icon, rasterizer, outputWidth, outputHeight);
+			timer.lap(Phase.transcode);
+
+			if (inputImage == null) {
+				log.error("Failed to render icon: " + icon.nameBase + ".png, skipping.");
+				failedIcons.add(icon);
+				return null;
+			}
+		} catch (Exception e) {
+			log.error("Failed to render icon: " + e.getMessage(), e);
 			failedIcons.add(icon);
 			return null;
 		}
-		return svgDocument;
+		return inputImage;
 	}
 
 	/**
 	 * <p>
-	 * Resizes the supplied inputImage to the specified width and height, using
-	 * lanczos resampling techniques.
+	 * Derives a smaller scale of an icon from a larger one by resampling,
+	 * unless the result would be too small or lose too much detail.
 	 * </p>
 	 *
 	 * @param icon
-	 *            the icon that's being resized
-	 * @param width
-	 *            the desired output width after rescaling operations
-	 * @param height
-	 *            the desired output height after rescaling operations
-	 * @param sourceImage
-	 *            the source image to resource
+	 *            the icon to derive
+	 * @param largest
+	 *            the icon painted at its largest scale
+	 * @param outputWidth
+	 *            the width of the derived image
+	 * @param outputHeight
+	 *            the height of the derived image
+	 * @param timer
+	 *            the timer of the icon
+	 * @return the derived image, or null if the icon has to be painted
 	 */
-	private void writeIcon(IconEntry icon, int width, int height, BufferedImage sourceImage) {
-		try {
-			String outputName = getOutputName(icon.nameBase);
-			ImageIO.write(sourceImage, "PNG", new File(icon.outputPath, outputName));
-		} catch (Exception e1) {
-			log.error("Failed to resize rendered icon to output size: " + icon.nameBase, e1);
-			failedIcons.add(icon);
+	private BufferedImage deriveIcon(IconEntry icon, BufferedImage largest, int outputWidth, int outputHeight,
+			IconTimer timer) {
+		if (outputWidth < resampleMinSize || outputHeight < resampleMinSize) {
+			return null;
+		}
+
+		progress.detail(() -> Thread.currentThread().getName() + " " + " Resampling: " + icon.nameBase
+				+ ".png to " + outputWidth + "x" + outputHeight);
+		timer.skip();
+
+		BufferedImage image = IconResampler.resample(largest, outputWidth, outputHeight);
+		double retention = IconResampler.getDetailRetention(largest, image);
+		timer.lap(Phase.resample);
+
+		if (retention < resampleMinRetention) {
+			progress.detail(() -> "Painting " + icon.nameBase + ".png at " + outputWidth + "x" + outputHeight
+					+ ", resampling kept " + Math.round(retention * 100) + "% of its detail");
+			resampleRejects.increment();
+			return null;
 		}
+		resampledScales.increment();
+		return image;
+	}
+
+	private static BufferedImage copy(BufferedImage image) {
+		return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
 	}
 
 	/**
-	 * 
-	 * @param outputName
-	 * @return
-	 */
-	private String getOutputName(String outputName) {
-		if (outputScale != 1) {
-			String scaleId = outputScale == (double) (int) outputScale ? Integer.toString((int) outputScale)
-					: Double.toString(outputScale);
-			outputName += "@" + scaleId + "x";
+	 * <p>
+	 * Writes the enabled and, if required, the disabled variant of an icon
+	 * rendered at a single scale.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the rendered icon
+	 * @param scale
+	 *            the scale the icon was rendered at
+	 * @param inputImage
+	 *            the rendered image, the disabled variant is filtered in
+	 *            place
+	 * @param timer
+	 *            the timer of the icon
+	 * @return the written PNGs, in the order of {@link #getOutputFiles}, or
+	 *         null if a variant was not written
+	 */
+	private byte[][] writeVariants(IconEntry icon, double scale, BufferedImage inputImage, IconTimer timer) {
+		File outputPath = getOutputPath(icon, icon.outputPath, scale);
+		File disabledPath = getOutputPath(icon, icon.disabledPath, scale);
+
+		String outputName = getOutputName(icon.nameBase, scale);
+		byte[] png = writeIcon(icon, new File(outputPath, outputName), inputImage, timer);
+		if (png == null) {
+			return null;
 		}
-		outputName += ".png";
-		return outputName;
+
+		if (disabledPath == null) {
+			return new byte[][] { png };
+		}
+
+		try {
+			// The enabled variant is written, so the image can be reused
+			DisabledIconFilter.filter(inputImage);
+			timer.lap(Phase.filter);
+		} catch (Exception e1) {
+			log.error("Failed to render disabled icon: " + icon.nameBase, e1);
+			failedIcons.add(icon);
+			return null;
+		}
+
+		byte[] disabledPng = writeIcon(icon, new File(disabledPath, outputName), inputImage, timer);
+		return disabledPng != null ? new byte[][] { png, disabledPng } : null;
 	}
 
 	/**
-	 * Use batik to rasterize the input SVG into a raster image at the specified
-	 * image dimensions.
+	 * <p>
+	 * Determines the files an icon is rendered to, the enabled and, if
+	 * required, the disabled variant.
+	 * </p>
 	 *
 	 * @param icon
-	 * @param width
-	 *            the width to render the icons at
-	 * @param height
-	 *            the height to render the icon at
-	 * @param transcoderInput
-	 *            the SVG transcoder input
-	 * @param stream
-	 *            the stream to write the PNG data to
-	 * 
-	 * @return true if the icon was rendered successfully, false otherwise
-	 * @throws MojoExecutionException
+	 *            the icon to determine the outputs for
+	 * @param scale
+	 *            the scale the icon is rendered at
+	 * @return the output files of the icon
 	 */
-	public boolean renderIcon(final IconEntry icon, int width, int height, TranscoderInput transcoderInput,
-			OutputStream stream) throws MojoExecutionException {
-		PNGTranscoder transcoder = new CustomTranscoder();
+	private List<File> getOutputFiles(IconEntry icon, double scale) {
+		List<File> outputFiles = new ArrayList<>(2);
+		String outputName = getOutputName(icon.nameBase, scale);
+		outputFiles.add(new File(getOutputPath(icon, icon.outputPath, scale), outputName));
+		if (icon.disabledPath != null) {
+			outputFiles.add(new File(getOutputPath(icon, icon.disabledPath, scale), outputName));
+		}
+		return outputFiles;
+	}
 
-		removeStyleDashPrefix(transcoderInput.getDocument().getDocumentElement());
+	/**
+	 * <p>
+	 * Maps an output directory of an icon, which was gathered for the first
+	 * requested scale, to the corresponding directory of another scale.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon the directory belongs to
+	 * @param path
+	 *            the output or disabled directory of the icon, may be null
+	 * @param scale
+	 *            the scale to map the directory to
+	 * @return the directory for the given scale or null
+	 */
+	private File getOutputPath(IconEntry icon, File path, double scale) {
+		if (path == null || scale == outputScales[0]) {
+			return path;
+		}
 
-		if (stylesheetName != null) {
-			String cssRoot = icon.inputPath.getAbsolutePath().replace("eclipse-svg", "eclipse-css");
-			cssRoot = cssRoot.replace("/icons/", "/styles/" + stylesheetName + "/");
-			cssRoot = cssRoot.replace(".svg", ".scss");
-			File cssPath = new File(cssRoot);
+		String dirName = icon.iconRoot.getName();
+		File gatheredBase = getOutputBase(outputScales[0], dirName);
+		String relativePath = gatheredBase.toPath().relativize(path.toPath()).toString();
+		return new File(getOutputBase(scale, dirName), relativePath);
+	}
 
-			File preprocessedCss = generateCSS(icon.nameBase, cssPath.getAbsolutePath());
+	private String stripOffPx(String dimensionString) {
+		if (dimensionString.endsWith("px")) {
+			return dimensionString.substring(0, dimensionString.length() - 2);
+		}
+		return dimensionString;
+	}
 
-			if (!preprocessedCss.exists()) {
-				log.error("Could not resolve supplied stylesheet: " + preprocessedCss.getAbsolutePath()
-						+ ", using defaults.");
-			} else {
-				removeInlineStyle(transcoderInput.getDocument().getDocumentElement());
+	/**
+	 * <p>
+	 * Generates a Batik SVGDocument for the supplied IconEntry's input file.
+	 * </p>
+	 *
+	 * @param context
+	 *            the render context of the calling thread
+	 * @param icon
+	 *            the icon entry to generate an SVG document for
+	 * @param svgBytes
+	 *            the content of the icon's input file
+	 *
+	 * @return a batik SVGDocument instance or null if one could not be
+	 *         generated
+	 */
+	SVGDocument generateSVGDocument(RenderContext context, IconEntry icon, byte[] svgBytes) {
+		// Load the document and find out the native height/width
+		// We reuse the document later for rasterization
+		SVGDocument svgDocument = null;
+		try (ByteArrayInputStream iconDocumentStream = new ByteArrayInputStream(svgBytes)) {
+			// What kind of URI is batik expecting here??? the docs don't say
+			svgDocument = context.parse("file://" + icon.nameBase + ".svg", iconDocumentStream);
+		} catch (Exception e3) {
+			log.error("Error parsing SVG icon document: " + e3.getMessage());
+			failedIcons.add(icon);
+			return null;
+		}
+		return svgDocument;
+	}
 
-				transcoder.addTranscodingHint(PNGTranscoder.KEY_USER_STYLESHEET_URI,
-						preprocessedCss.toURI().toString());
+	/**
+	 * <p>
+	 * Loads the cleaned SVGDocument of the supplied IconEntry from the
+	 * document cache. If it is not cached, the input file is parsed, cleaned
+	 * and stored in the cache.
+	 * </p>
+	 *
+	 * @param context
+	 *            the render context of the calling thread
+	 * @param icon
+	 *            the icon entry to load an SVG document for
+	 * @param svgBytes
+	 *            the content of the icon's input file
+	 *
+	 * @return a cleaned batik SVGDocument instance or null if one could not be
+	 *         generated
+	 */
+	SVGDocument loadSVGDocument(RenderContext context, IconEntry icon, byte[] svgBytes) {
+		String key = DocumentCache.computeKey(svgBytes);
+		try {
+			SVGDocument svgDocument = documentCache.load(context, key, "file://" + icon.nameBase + ".svg");
+			if (svgDocument != null) {
+				return svgDocument;
 			}
+		} catch (IOException e) {
+			progress.detail(() -> "Discarding cached document of " + icon.nameBase + ": " + e.getMessage());
 		}
 
-		transcoder.addTranscodingHint(PNGTranscoder.KEY_WIDTH, Float.valueOf(width));
-		transcoder.addTranscodingHint(PNGTranscoder.KEY_HEIGHT, Float.valueOf(height));
+		SVGDocument svgDocument = generateSVGDocument(context, icon, svgBytes);
+		if (svgDocument == null) {
+			return null;
+		}
 
-		transcoder.setErrorHandler(new ErrorHandler() {
-			@Override
-			public void warning(TranscoderException arg0) throws TranscoderException {
-				log.error("Icon: " + icon + " - WARN: " + arg0.getMessage());
-			}
+		removeStyleDashPrefix(svgDocument.getDocumentElement());
+		try {
+			documentCache.store(key, svgDocument);
+		} catch (IOException e) {
+			log.warn("Could not cache document of " + icon.nameBase + ": " + e.getMessage());
+		}
+		return svgDocument;
+	}
 
-			@Override
-			public void fatalError(TranscoderException arg0) throws TranscoderException {
-				log.error("Icon: " + icon + " - FATAL: " + arg0.getMessage());
-			}
+	/**
+	 * <p>
+	 * Resizes the supplied inputImage to the specified width and height, using
+	 * lanczos resampling techniques.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon that's being resized
+	 * @param outputFile
+	 *            the file to write the icon to
+	 * @param sourceImage
+	 *            the source image to resource
+	 * @param timer
+	 *            the timer of the icon
+	 * @return the written PNG or null if the icon could not be written
+	 */
+	private byte[] writeIcon(IconEntry icon, File outputFile, BufferedImage sourceImage, IconTimer timer) {
+		try {
+			byte[] png = pngEncoder.encode(sourceImage);
+			timer.lap(Phase.encode);
 
-			@Override
-			public void error(TranscoderException arg0) throws TranscoderException {
-				log.error("Icon: " + icon + " - ERROR: " + arg0.getMessage());
+			writeFile(outputFile, png);
+			timer.lap(Phase.write);
+			return png;
+		} catch (Exception e1) {
+			log.error("Failed to resize rendered icon to output size: " + icon.nameBase, e1);
+			failedIcons.add(icon);
+			return null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes the PNGs an identical icon was rendered to as the outputs of
+	 * another icon.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to write
+	 * @param scale
+	 *            the scale the PNGs were rendered at
+	 * @param shared
+	 *            the outputs of the identical icon
+	 * @param timer
+	 *            the timer of the icon
+	 * @return true if the icon was written successfully, false otherwise
+	 */
+	private boolean writeShared(IconEntry icon, double scale, SharedOutput shared, IconTimer timer) {
+		try {
+			List<File> outputFiles = getOutputFiles(icon, scale);
+			for (int i = 0; i < outputFiles.size(); i++) {
+				writeFile(outputFiles.get(i), shared.read(i));
 			}
-		});
+			timer.lap(Phase.write);
+			return true;
+		} catch (IOException e) {
+			log.error("Failed to write icon: " + icon.nameBase, e);
+			failedIcons.add(icon);
+			return false;
+		}
+	}
+
+	private void writeFile(File outputFile, byte[] png) throws IOException {
+		if (archives != null) {
+			archives.write(outputFile, png);
+		} else {
+			output.write(outputFile, png);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Computes a key that is the same for icons which render to identical
+	 * outputs: a hash over the SVG source without the metadata Inkscape
+	 * stores about the file, together with the stylesheet of the icon and
+	 * whether a disabled variant is rendered.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon
+	 * @param svgBytes
+	 *            the content of the icon's input file
+	 * @return the key
+	 */
+	private String getContentKey(IconEntry icon, byte[] svgBytes) {
+		String source = new String(svgBytes, StandardCharsets.ISO_8859_1);
+		String normalized = FILE_METADATA.matcher(source).replaceAll("").replace("\r\n", "\n").strip();
+		String key = DocumentCache.computeKey(normalized.getBytes(StandardCharsets.ISO_8859_1));
+		if (stylesheetName != null) {
+			key += "|" + getStylesheetSource(icon).getPath();
+		}
+		return key + "|" + (icon.disabledPath != null);
+	}
+
+	/**
+	 * 
+	 * @param outputName
+	 * @param scale
+	 * @return
+	 */
+	private String getOutputName(String outputName, double scale) {
+		if (scale != 1) {
+			String scaleId = scale == (double) (int) scale ? Integer.toString((int) scale)
+					: Double.toString(scale);
+			outputName += "@" + scaleId + "x";
+		}
+		outputName += ".png";
+		return outputName;
+	}
+
+	/**
+	 * <p>
+	 * Prepares a parsed icon document for rendering. Removes broken inkscape
+	 * styles, unless the document came from the document cache which stores
+	 * cleaned documents, and, if a stylesheet theme is used, replaces the
+	 * inline styles with the theme's stylesheet.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon the document belongs to
+	 * @param svgDocument
+	 *            the parsed document of the icon
+	 * @param timer
+	 *            the timer of the icon
+	 * @return the URI of the stylesheet to render with or null
+	 * @throws MojoExecutionException
+	 */
+	private String prepareDocument(IconEntry icon, SVGDocument svgDocument, IconTimer timer)
+			throws MojoExecutionException {
+		if (documentCache == null) {
+			removeStyleDashPrefix(svgDocument.getDocumentElement());
+			timer.lap(Phase.cleanup);
+		}
 
-		// Transcode the SVG document input to a PNG via the output stream
-		TranscoderOutput output = new TranscoderOutput(stream);
+		if (stylesheetName == null) {
+			return null;
+		}
+
+		File cssPath = getStylesheetSource(icon);
+
+		File preprocessedCss = stylesheetCompiler.compile(cssPath);
+		timer.lap(Phase.css);
+
+		if (!preprocessedCss.exists()) {
+			log.error("Could not resolve supplied stylesheet: " + preprocessedCss.getAbsolutePath()
+					+ ", using defaults.");
+			return null;
+		}
+
+		removeInlineStyle(svgDocument.getDocumentElement());
+		timer.lap(Phase.cleanup);
 
+		return preprocessedCss.toURI().toString();
+	}
+
+	/**
+	 * Use batik to rasterize the input SVG into a raster image at the specified
+	 * image dimensions. The rendered image is handed on as is, without
+	 * encoding it to PNG and reading it back.
+	 *
+	 * @param icon
+	 * @param rasterizer
+	 *            the rasterizer holding the icon's GVT tree
+	 * @param width
+	 *            the width to render the icons at
+	 * @param height
+	 *            the height to render the icon at
+	 * 
+	 * @return the rendered image or null if the icon could not be rendered
+	 */
+	BufferedImage renderIcon(final IconEntry icon, IconRasterizer rasterizer, int width, int height) {
 		try {
-			transcoder.transcode(transcoderInput, output);
-			return true;
+			return rasterizer.paint(width, height);
 		} catch (Exception e) {
 			log.error("Error transcoding SVG to bitmap.", e);
-			return false;
-		} finally {
-			try {
-				stream.close();
-			} catch (IOException e) {
-				log.error("Error closing transcoder stream.", e);
-			}
+			return null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Resolves the SASS stylesheet of an icon for the current stylesheet theme.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to resolve the stylesheet for
+	 * @return the SASS source file of the icon's stylesheet
+	 */
+	private File getStylesheetSource(IconEntry icon) {
+		String cssRoot = icon.inputPath.getAbsolutePath().replace("eclipse-svg", "eclipse-css");
+		cssRoot = cssRoot.replace("/icons/", "/styles/" + stylesheetName + "/");
+		cssRoot = cssRoot.replace(".svg", ".scss");
+		return new File(cssRoot);
+	}
+
+	/**
+	 * <p>
+	 * Reads the compiled CSS an icon is rendered with, so changes to its
+	 * stylesheet or to any partial the stylesheet imports invalidate
+	 * previously rendered outputs. The stylesheet is compiled once per run
+	 * and rendering takes the same CSS.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to read the stylesheet for
+	 * @return the CSS content or null if no stylesheet is used
+	 */
+	private byte[] readStylesheet(IconEntry icon) {
+		if (stylesheetName == null) {
+			return null;
+		}
+
+		File cssPath = getStylesheetSource(icon);
+		if (!cssPath.exists()) {
+			return null;
+		}
+
+		File css = cssPath;
+		try {
+			css = stylesheetCompiler.compile(cssPath);
+			return Files.readAllBytes(css.toPath());
+		} catch (MojoExecutionException | IOException e) {
+			// Rendering reports the problem. The key without CSS matches no
+			// output rendered with the theme, so the icon isn't skipped
+			log.warn("Could not read stylesheet: " + css.getAbsolutePath());
+			return null;
 		}
 	}
 
@@ -502,13 +1177,13 @@ public class RenderMojo extends AbstractMojo {
 	 *
 	 * @param threads
 	 *            the number of threads to render with
-	 * @param scale
-	 *            multiplier to use with icon output dimensions
+	 * @param scales
+	 *            multipliers to use with icon output dimensions
 	 */
-	private void init(int threads, double scale) {
+	private void init(int threads, double[] scales) {
 		this.threads = threads;
-		this.outputScale = Math.max(1, scale);
-		icons = new ArrayList<>();
+		this.outputScales = Arrays.stream(scales).map(scale -> Math.max(1, scale)).distinct().toArray();
+		icons = Collections.synchronizedList(new ArrayList<>());
 		counter = new AtomicInteger();
 	}
 
@@ -518,28 +1193,33 @@ public class RenderMojo extends AbstractMojo {
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		log = getLog();
 
-		// Default to 2x the number of processor cores but allow override via
+		// Default to the number of processor cores but allow override via
 		// jvm arg
 		int systemCores = Math.max(1, Runtime.getRuntime().availableProcessors());
+		int renderThreads = systemCores;
 		String threadStr = System.getProperty(RENDERTHREADS);
 		if (threadStr != null) {
 			try {
-				threads = Integer.parseInt(threadStr);
+				renderThreads = Math.max(1, Integer.parseInt(threadStr.trim()));
 			} catch (Exception e) {
 				log.error("Could not parse thread count, using default thread count.", e);
-				threads = systemCores;
 			}
 		}
 
 		// if high res is enabled, the icons output size will be scaled by
-		// iconScale
+		// each of the iconScales
 		// Defaults to 1, meaning native size
-		double iconScale = 1;
+		double[] iconScales = { 1 };
 		String iconScaleStr = System.getProperty(ECLIPSE_SVG_SCALE);
 		if (iconScaleStr != null) {
-			iconScale = Double.parseDouble(iconScaleStr);
-			if (iconScale != 1 && iconScale != 1.5 && iconScale != 2) {
-				log.warn("Unusual scale factor: " + iconScaleStr + " (@" + iconScale + "x)");
+			String[] scaleStrs = iconScaleStr.split(",");
+			iconScales = new double[scaleStrs.length];
+			for (int i = 0; i < scaleStrs.length; i++) {
+				double iconScale = Double.parseDouble(scaleStrs[i].trim());
+				if (iconScale != 1 && iconScale != 1.5 && iconScale != 2) {
+					log.warn("Unusual scale factor: " + scaleStrs[i].trim() + " (@" + iconScale + "x)");
+				}
+				iconScales[i] = iconScale;
 			}
 		}
 
@@ -551,17 +1231,17 @@ public class RenderMojo extends AbstractMojo {
 		}
 
 		// Defaults to "eclipse-png"
-		String targetDir = "eclipse-png";
+		targetDir = "eclipse-png";
 		String targetDirProp = System.getProperty(TARGET_DIR);
 		if (targetDirProp != null) {
 			targetDir = targetDirProp;
 		}
 
 		// Defaults to "true"
-		boolean createFragements = true;
+		createFragments = true;
 		String createFragmentsProp = System.getProperty(CREATE_FRAGMENTS);
 		if (createFragmentsProp != null) {
-			createFragements = Boolean.parseBoolean(createFragmentsProp);
+			createFragments = Boolean.parseBoolean(createFragmentsProp);
 		}
 
 		// Defaults to "false"
@@ -576,162 +1256,919 @@ public class RenderMojo extends AbstractMojo {
 			regenerateCss = Boolean.parseBoolean(regenerateStyles);
 		}
 
-		// Track the time it takes to render the entire set
-		long totalStartTime = System.currentTimeMillis();
+		// Defaults to "false"
+		String archiveProp = System.getProperty(ARCHIVE);
+		if (archiveProp != null && Boolean.parseBoolean(archiveProp)) {
+			archives = new IconArchives();
+		}
 
-		// initialize defaults (the old renderer was instantiated via
-		// constructor)
-		init(systemCores, iconScale);
+		// Defaults to "false", the atlases are built from the written files
+		String atlasProp = System.getProperty(ATLAS);
+		if (atlasProp != null && Boolean.parseBoolean(atlasProp)) {
+			if (archives != null) {
+				log.warn("Icon atlases can't be built from archives, not building atlases.");
+			} else {
+				atlas = true;
+			}
+		}
+
+		// Defaults to "true", regenerated styles and archives always require a
+		// full render
+		boolean incremental = !regenerateCss && archives == null;
+		String incrementalProp = System.getProperty(INCREMENTAL);
+		if (incrementalProp != null) {
+			incremental = Boolean.parseBoolean(incrementalProp) && !regenerateCss && archives == null;
+		}
 
-		String workingDirectory = System.getProperty("user.dir");
+		// Defaults to "true" if the styles are regenerated, only missing
+		// styles are compiled otherwise
+		boolean stylesheetBatch = regenerateCss;
+		String stylesheetBatchProp = System.getProperty(STYLESHEET_BATCH);
+		if (stylesheetBatchProp != null) {
+			stylesheetBatch = Boolean.parseBoolean(stylesheetBatchProp);
+		}
 
-		String dirSuffix = "/" + targetDir + "/";
-		if ((iconScale != 1) && createFragements) {
-			dirSuffix = "/" + targetDir + "-hidpi/";
+		// Defaults to "false"
+		String reportProp = System.getProperty(REPORT);
+		if (reportProp != null && Boolean.parseBoolean(reportProp)) {
+			report = new RenderReport();
 		}
 
-		if(stylesheetName != null) {
-			if ((iconScale != 1) && createFragements) {
-				dirSuffix = "/" + targetDir + "-" + stylesheetName + "-hidpi/";
-			} else {
-				dirSuffix = "/" + targetDir + "-" + stylesheetName + "/";
+		// Defaults to 10 seconds
+		String progressIntervalProp = System.getProperty(PROGRESS_INTERVAL);
+		if (progressIntervalProp != null) {
+			try {
+				progressInterval = Math.max(0, Integer.parseInt(progressIntervalProp.trim()));
+			} catch (NumberFormatException e) {
+				log.error("Could not parse progress interval, using default.", e);
 			}
 		}
-		
-		File outputDir = new File(workingDirectory + dirSuffix);
-		File iconDirectoryRoot = new File(sourceDir + "/");
 
-		if (!iconDirectoryRoot.exists()) {
-			log.error("Source directory' " + sourceDir + "' does not exist.");
-			return;
+		// Defaults to the debug log
+		String detailLogProp = System.getProperty(DETAIL_LOG);
+		if (detailLogProp != null) {
+			detailLog = new File(detailLogProp);
 		}
 
-		// Search each subdir in the root dir for svg icons
-		for (File file : iconDirectoryRoot.listFiles()) {
-			if (!file.isDirectory()) {
-				continue;
+		// Defaults to half of the maximum heap
+		long memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 2;
+		String memoryBudgetProp = System.getProperty(MEMORY_BUDGET);
+		if (memoryBudgetProp != null) {
+			try {
+				memoryBudgetBytes = Math.max(1, Long.parseLong(memoryBudgetProp.trim())) * 1024 * 1024;
+			} catch (NumberFormatException e) {
+				log.error("Could not parse memory budget, using default.", e);
 			}
+		}
+		memoryBudget = new MemoryBudget(memoryBudgetBytes);
 
-			String dirName = file.getName();
+		// Defaults to "false"
+		resample = Boolean.parseBoolean(System.getProperty(RESAMPLE));
 
-			// Where to place the rendered icon
-			String child = dirName;
-			if ((iconScale != 1) && createFragements) {
-				child = dirName + ".hidpi";
+		// Defaults to 24, smaller icons are drawn on the pixel grid and blur
+		String resampleMinSizeProp = System.getProperty(RESAMPLE_MIN_SIZE);
+		if (resampleMinSizeProp != null) {
+			try {
+				resampleMinSize = Integer.parseInt(resampleMinSizeProp.trim());
+			} catch (NumberFormatException e) {
+				log.error("Could not parse resample minimum size, using default.", e);
 			}
+		}
 
-			File outputBase = new File(outputDir, child);
-			if ((iconScale != 1) && createFragements) {
-				createFragmentFiles(outputBase, dirName);
+		// Defaults to 0.85
+		String resampleMinRetentionProp = System.getProperty(RESAMPLE_MIN_RETENTION);
+		if (resampleMinRetentionProp != null) {
+			try {
+				resampleMinRetention = Double.parseDouble(resampleMinRetentionProp.trim());
+			} catch (NumberFormatException e) {
+				log.error("Could not parse resample minimum retention, using default.", e);
 			}
+		}
 
-			IconGatherer.gatherIcons(icons, "svg", file, file, outputBase, true, FolderState.include);
+		// Defaults to "true"
+		String deduplicateProp = System.getProperty(DEDUPLICATE);
+		if (deduplicateProp == null || Boolean.parseBoolean(deduplicateProp)) {
+			sharedOutputs = new ConcurrentHashMap<>();
 		}
 
-		log.info("Working directory: " + outputDir.getAbsolutePath());
-		log.info("SVG Icon Directory: " + iconDirectoryRoot.getAbsolutePath());
-		log.info("Rendering icons with " + systemCores + " threads, scaling output to " + iconScale + "x");
-		long startTime = System.currentTimeMillis();
+		// Defaults to "true"
+		boolean cacheDocuments = true;
+		String documentCacheProp = System.getProperty(DOCUMENT_CACHE);
+		if (documentCacheProp != null) {
+			cacheDocuments = Boolean.parseBoolean(documentCacheProp);
+		}
 
-		ForkJoinPool forkJoinPool = new ForkJoinPool(threads);
+		// Defaults to "true"
+		String poolingProp = System.getProperty(POOLING);
+		if (poolingProp != null) {
+			pooling = Boolean.parseBoolean(poolingProp);
+		}
 
-		try {
-			forkJoinPool.submit(() -> {
-				icons.parallelStream().forEach(this::rasterize);
-				return null;
-			}).get();
+		// Defaults to the smallest output, use a lower level for faster builds
+		int pngCompression = Deflater.BEST_COMPRESSION;
+		String pngCompressionProp = System.getProperty(PNG_COMPRESSION);
+		if (pngCompressionProp != null) {
+			try {
+				pngCompression = Integer.parseInt(pngCompressionProp.trim());
+			} catch (NumberFormatException e) {
+				log.error("Could not parse PNG compression level, using default.", e);
+			}
+		}
+
+		// Defaults to "standard"
+		PngEncoder.Strategy pngStrategy = PngEncoder.Strategy.standard;
+		String pngStrategyProp = System.getProperty(PNG_STRATEGY);
+		if (pngStrategyProp != null) {
+			try {
+				pngStrategy = PngEncoder.Strategy.parse(pngStrategyProp);
+			} catch (IllegalArgumentException e) {
+				log.error("Unknown PNG strategy '" + pngStrategyProp + "', using default.", e);
+			}
+		}
+
+		// Defaults to "adaptive"
+		PngEncoder.Filter pngFilter = PngEncoder.Filter.adaptive;
+		String pngFilterProp = System.getProperty(PNG_FILTER);
+		if (pngFilterProp != null) {
+			try {
+				pngFilter = PngEncoder.Filter.parse(pngFilterProp);
+			} catch (IllegalArgumentException e) {
+				log.error("Unknown PNG filter '" + pngFilterProp + "', using default.", e);
+			}
+		}
+
+		try {
+			pngEncoder = new PngEncoder(pngCompression, pngStrategy, pngFilter);
+		} catch (IllegalArgumentException e) {
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
+
+		renderSettings = "stylesheet=" + stylesheetName + ";" + pngEncoder;
+		if (resample) {
+			renderSettings += ";resample=" + resampleMinSize + "," + resampleMinRetention;
+		}
+
+		// Track the time it takes to render the entire set
+		long totalStartTime = System.currentTimeMillis();
+
+		// initialize defaults (the old renderer was instantiated via
+		// constructor)
+		init(renderThreads, iconScales);
+
+		workingDirectory = System.getProperty("user.dir");
+
+		File iconDirectoryRoot = new File(sourceDir + "/");
+		sourceRoot = iconDirectoryRoot.getAbsoluteFile();
+
+		if (!iconDirectoryRoot.exists()) {
+			log.error("Source directory' " + sourceDir + "' does not exist.");
+			return;
+		}
+
+		// The icon roots (org.eclipse.ui, etc) in the root dir, searched in
+		// parallel
+		List<File> iconRoots = new ArrayList<>();
+		for (File file : iconDirectoryRoot.listFiles()) {
+			if (!file.isDirectory()) {
+				continue;
+			}
+
+			iconRoots.add(file);
+			String dirName = file.getName();
+
+			for (double scale : outputScales) {
+				boolean fragment = (scale != 1) && createFragments;
+				if (archives != null) {
+					archives.addArchive(getOutputBase(scale, dirName), fragment ? getFragmentManifest(dirName) : null);
+				} else if (fragment) {
+					createFragmentFiles(getOutputBase(scale, dirName), dirName);
+				}
+			}
+		}
+
+		output = new IconOutput();
+
+		if (cacheDocuments) {
+			documentCache = new DocumentCache(new File(workingDirectory, "target/svg-cache"));
+		}
+
+		if (stylesheetName != null) {
+			stylesheetCompiler = new StylesheetCompiler(new File(workingDirectory, "eclipse-css/styles/"),
+					regenerateCss, log);
+
+			if (stylesheetBatch) {
+				stylesheetCompiler.compileAll(getThemeDirectories(iconRoots));
+			}
+		}
+
+		File manifestFile = new File(workingDirectory, "target/render-manifest.txt");
+		manifest = incremental ? RenderManifest.load(manifestFile, new File(workingDirectory), log) : null;
+
+		for (double scale : outputScales) {
+			log.info("Working directory: " + getOutputDir(scale).getAbsolutePath());
+		}
+		log.info("SVG Icon Directory: " + iconDirectoryRoot.getAbsolutePath());
+		log.info("Rendering icons with " + threads + " threads, scaling output to "
+				+ Arrays.stream(outputScales).mapToObj(scale -> scale + "x").collect(Collectors.joining(", ")));
+		long startTime = System.currentTimeMillis();
+
+		try {
+			progress = new RenderProgress(log, this::getFailedIcons, progressInterval, detailLog);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not create detail log: " + e.getMessage(), e);
+		}
+
+		// Render the icons while the tree is still searched, the expensive
+		// icons found so far first
+		renderExecutor = Executors.newFixedThreadPool(threads);
+		RenderScheduler scheduler = new RenderScheduler(threads, outputScales, memoryBudget, renderExecutor);
+		memoryBudget.startSampling();
+		scheduler.start(this::rasterize);
+
+		try {
+			gatherIcons(iconRoots, scheduler);
 		} catch (Exception e) {
-			log.error("Error while rendering icons.", e);
+			log.error("Error while searching icons.", e);
+		}
+		progress.discoveryDone();
+
+		Exception renderFailure = null;
+		try {
+			scheduler.finish();
+		} catch (Exception e) {
+			renderFailure = e;
+		} finally {
+			memoryBudget.stopSampling();
+			progress.close();
+			if (renderFailure != null || !keepRenderThreads()) {
+				renderExecutor.shutdownNow();
+			}
+		}
+		clearSharedOutputs();
+
+		if (archives != null) {
+			try {
+				archives.close();
+			} catch (IOException e) {
+				log.error("Could not write icon archive: " + e.getMessage(), e);
+			}
+		}
+
+		// A render thread stopped, the outputs and the manifest can't be
+		// trusted
+		if (renderFailure != null) {
+			Throwable cause = renderFailure.getCause() != null ? renderFailure.getCause() : renderFailure;
+			throw new MojoExecutionException("Error while rendering icons: " + cause, cause);
 		}
 
 		// Print summary of operations
 		int iconRendered = getIconsRendered();
 		int failedIcons = getFailedIcons();
-		int fullIconCount = iconRendered - failedIcons;
 
-		log.info(fullIconCount + " Icons Rendered");
+		log.info(iconRendered + " Icons Rendered");
 		log.info(failedIcons + " Icons Failed");
-		log.info("Took: " + (System.currentTimeMillis() - startTime) + " ms.");
+		long renderMillis = System.currentTimeMillis() - startTime;
+		log.info("Took: " + renderMillis + " ms.");
+		log.info("Throughput: " + (iconRendered * 1000L / Math.max(1, renderMillis)) + " icons/s, peak heap "
+				+ (memoryBudget.getPeakHeap() >> 20) + " MB of " + (Runtime.getRuntime().maxMemory() >> 20)
+				+ " MB, memory budget " + (memoryBudget.getBytes() >> 20) + " MB, " + memoryBudget.getWaits()
+				+ " icons waited for memory");
+		if (archives != null) {
+			log.info("Output: " + archives.getEntries() + " icons written into " + archives.getArchiveCount()
+					+ " archives, " + archives.getBytesWritten() + " bytes");
+		} else {
+			log.info("Output: " + output.getFilesWritten() + " files written, " + output.getFilesUnchanged()
+					+ " unchanged, " + output.getBytesWritten() + " bytes, " + output.getSyscalls()
+					+ " file system calls");
+		}
+		if (sharedOutputs != null) {
+			long shared = sharedRenders.sum();
+			log.info("Deduplication: " + shared + " of " + iconRendered
+					+ " rendered icons taken over from identical icons, ratio "
+					+ String.format("%.2f", (double) iconRendered / Math.max(1, iconRendered - shared)) + ":1");
+		}
+		if (resample) {
+			log.info("Resampling: " + resampledScales.sum() + " icons derived from a larger scale, "
+					+ resampleRejects.sum() + " painted as they lost too much detail");
+		}
+		if (documentCache != null) {
+			log.info("Document cache: " + documentCache.getHits() + " hits, " + documentCache.getMisses()
+					+ " misses");
+		}
+		if (stylesheetCompiler != null) {
+			log.info("SASS: " + stylesheetCompiler.getStylesheetCount() + " stylesheets, "
+					+ stylesheetCompiler.getInvocations() + " compiler runs");
+		}
+		log.info("Render thread utilization: " + Math.round(scheduler.getUtilization() * 100) + "% of " + threads
+				+ " threads");
+
+		long setups = setupCount.sum();
+		if (setups > 0) {
+			log.info("Render setup: " + (setupNanos.sum() / setups / 1000) + " us per icon ("
+					+ (pooling ? "pooled" : "unpooled") + ")");
+		}
+
+		if (atlas) {
+			writeAtlases(iconRoots);
+		}
+
+		if (report != null) {
+			writeReport();
+		}
+
+		if (manifest != null) {
+			int pruned = manifest.prune(log);
+			log.info("Render cache: " + manifest.getHits() + " hits, " + manifest.getMisses() + " misses, " + pruned
+					+ " outputs of removed icons deleted");
+
+			try {
+				manifest.save();
+			} catch (IOException e) {
+				log.error("Could not write render manifest: " + manifestFile.getAbsolutePath(), e);
+			}
+		}
 
 		log.info("Rasterization operations completed, Took: " + (System.currentTimeMillis() - totalStartTime) + " ms.");
 	}
 
-	private void createFragmentFiles(File outputBase, String dirName) {
-		createFile(new File(outputBase, "build.properties"), "bin.includes = META-INF/,icons/,.\n");
-		createFile(new File(outputBase, ".project"),
-				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + "<projectDescription>\n" + "    <name>" + dirName
-						+ ".hidpi</name>\n" + "    <comment></comment>\n" + "    <projects>\n" + "    </projects>\n"
-						+ "    <buildSpec>\n" + "        <buildCommand>\n"
-						+ "            <name>org.eclipse.pde.ManifestBuilder</name>\n" + "            <arguments>\n"
-						+ "            </arguments>\n" + "        </buildCommand>\n" + "        <buildCommand>\n"
-						+ "            <name>org.eclipse.pde.SchemaBuilder</name>\n" + "            <arguments>\n"
-						+ "            </arguments>\n" + "        </buildCommand>\n" + "    </buildSpec>\n"
-						+ "    <natures>\n" + "        <nature>org.eclipse.pde.PluginNature</nature>\n"
-						+ "    </natures>\n" + "</projectDescription>\n");
-		createFile(new File(outputBase, "META-INF/MANIFEST.MF"),
-				"Manifest-Version: 1.0\n" + "Bundle-ManifestVersion: 2\n" + "Bundle-Name: " + dirName + ".hidpi\n"
-						+ "Bundle-SymbolicName: " + dirName + ".hidpi\n" + "Bundle-Version: 0.1.0.qualifier\n"
-						+ "Fragment-Host: " + dirName + "\n");
+	/**
+	 * <p>
+	 * Searches the icon roots in parallel, one thread per icon root, and
+	 * submits every icon for rendering as soon as it is found.
+	 * </p>
+	 *
+	 * @param iconRoots
+	 *            the icon roots to search
+	 * @param scheduler
+	 *            the scheduler rendering the found icons
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting
+	 * @throws ExecutionException
+	 *             if searching an icon root failed
+	 */
+	private void gatherIcons(List<File> iconRoots, RenderScheduler scheduler)
+			throws InterruptedException, ExecutionException {
+		if (iconRoots.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, iconRoots.size()));
+		try {
+			List<Future<?>> searches = new ArrayList<>(iconRoots.size());
+			for (File iconRoot : iconRoots) {
+				// Where to place the rendered icon, other scales are mapped
+				// from the first one
+				File outputBase = getOutputBase(outputScales[0], iconRoot.getName());
+
+				searches.add(executor.submit(() -> IconGatherer.gatherIcons(icon -> iconFound(icon, scheduler), "svg",
+						iconRoot, iconRoot, outputBase, true, FolderState.include)));
+			}
+
+			for (Future<?> search : searches) {
+				search.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
 	}
 
 	/**
-	 * 
-	 * @param file
-	 * @param contents
+	 * <p>
+	 * Creates the output directories of a found icon and submits it for
+	 * rendering, called on the searching threads.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the found icon
+	 * @param scheduler
+	 *            the scheduler rendering the icon
 	 */
-	private void createFile(File file, String contents) {
-		try (FileWriter writer = new FileWriter(file)) {
-			file.getParentFile().mkdirs();
-			writer.write(contents);
+	private void iconFound(IconEntry icon, RenderScheduler scheduler) {
+		icons.add(icon);
+
+		if (archives == null) {
+			try {
+				output.createDirectories(getOutputDirectories(icon));
+			} catch (IOException e) {
+				log.warn("Could not create output directory: " + e.getMessage());
+			}
+		}
+
+		progress.iconFound();
+		scheduler.submit(icon);
+	}
+
+	/**
+	 * @return the directory the SVG sources are taken from, null before the
+	 *         first run
+	 */
+	File getSourceRoot() {
+		return sourceRoot;
+	}
+
+	/**
+	 * @return true if the render threads are kept after the run for
+	 *         {@link #renderIcons}, false if they are shut down
+	 */
+	boolean keepRenderThreads() {
+		return false;
+	}
+
+	/**
+	 * @return the threads the icons were rendered on, with warm render
+	 *         contexts; the caller shuts them down, null if nothing was
+	 *         rendered or {@link #keepRenderThreads()} is false
+	 */
+	ExecutorService getRenderThreads() {
+		return renderExecutor != null && !renderExecutor.isShutdown() ? renderExecutor : null;
+	}
+
+	/**
+	 * @return the compiler of the theme's stylesheets, null without a theme
+	 */
+	StylesheetCompiler getStylesheetCompiler() {
+		return stylesheetCompiler;
+	}
+
+	/**
+	 * @return true if icons are written into archives instead of single files
+	 */
+	boolean isArchive() {
+		return archives != null;
+	}
+
+	/**
+	 * <p>
+	 * Resolves the icons of SVG sources, applying the same rules as the
+	 * initial search of the icon roots. Every affected icon root is searched
+	 * once for all of its sources.
+	 * </p>
+	 *
+	 * @param svgFiles
+	 *            the SVG sources
+	 * @return the icons of the sources that are rendered
+	 */
+	List<IconEntry> findIcons(Collection<File> svgFiles) {
+		Map<String, Set<Path>> sourcesByRoot = new LinkedHashMap<>();
+		for (File svgFile : svgFiles) {
+			Path source = svgFile.getAbsoluteFile().toPath();
+			Path relative = sourceRoot.toPath().relativize(source);
+			if (relative.startsWith("..") || relative.getNameCount() < 2) {
+				continue;
+			}
+			sourcesByRoot.computeIfAbsent(relative.getName(0).toString(), root -> new HashSet<>()).add(source);
+		}
+
+		List<IconEntry> found = new ArrayList<>();
+		sourcesByRoot.forEach((rootName, sources) -> {
+			File iconRoot = new File(sourceRoot, rootName);
+			File outputBase = getOutputBase(outputScales[0], iconRoot.getName());
+
+			// The whole icon root is searched, so the folder rules apply
+			IconGatherer.gatherIcons(icon -> {
+				if (sources.contains(icon.inputPath.toPath())) {
+					found.add(icon);
+				}
+			}, "svg", iconRoot, iconRoot, outputBase, true, FolderState.include);
+		});
+		return found;
+	}
+
+	/**
+	 * <p>
+	 * Determines the icons that are rendered with a stylesheet of the theme.
+	 * </p>
+	 *
+	 * @param stylesheet
+	 *            the SASS source, or null for all icons of the theme
+	 * @return the icons using the stylesheet
+	 */
+	List<IconEntry> getIconsUsingStylesheet(File stylesheet) {
+		List<IconEntry> using = new ArrayList<>();
+		if (stylesheetName == null) {
+			return using;
+		}
+
+		synchronized (icons) {
+			for (IconEntry icon : icons) {
+				if (stylesheet == null || getStylesheetSource(icon).equals(stylesheet.getAbsoluteFile())) {
+					using.add(icon);
+				}
+			}
+		}
+		return using;
+	}
+
+	/**
+	 * <p>
+	 * Renders changed icons again after the initial run, on the supplied long
+	 * lived threads so their render contexts stay warm. The render manifest
+	 * is bypassed, a changed stylesheet doesn't always change the render key.
+	 * </p>
+	 *
+	 * @param changed
+	 *            the icons to render
+	 * @param executor
+	 *            the threads to render on
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting
+	 */
+	void renderIcons(List<IconEntry> changed, ExecutorService executor) throws InterruptedException {
+		try {
+			progress = new RenderProgress(log, this::getFailedIcons, 0, null);
 		} catch (IOException e) {
-			log.error(e);
+			// Can't happen without a detail file
+			throw new IllegalStateException(e);
+		}
+
+		forceRender = true;
+		try {
+			List<Future<?>> renders = new ArrayList<>(changed.size());
+			for (IconEntry icon : changed) {
+				synchronized (icons) {
+					icons.removeIf(existing -> existing.inputPath.equals(icon.inputPath));
+					icons.add(icon);
+				}
+
+				try {
+					output.createDirectories(getOutputDirectories(icon));
+				} catch (IOException e) {
+					log.warn("Could not create output directory: " + e.getMessage());
+				}
+
+				progress.iconFound();
+				renders.add(executor.submit(() -> rasterize(icon)));
+			}
+			progress.discoveryDone();
+
+			for (Future<?> render : renders) {
+				try {
+					render.get();
+				} catch (ExecutionException e) {
+					log.error("Error while rendering icons.", e);
+				}
+			}
+		} finally {
+			forceRender = false;
+			progress.close();
+			clearSharedOutputs();
+		}
+
+		if (atlas) {
+			writeAtlases(changed.stream().map(icon -> icon.iconRoot).distinct().collect(Collectors.toList()));
 		}
+		saveManifest();
 	}
 
 	/**
 	 * <p>
-	 * Uses SASS to generate a CSS style sheet for the given style name.
+	 * Deletes the outputs of removed SVG sources. The atlases of the affected
+	 * icon roots are written again without them.
 	 * </p>
-	 * 
-	 * @param inputStylesheet
-	 * @return
-	 * @throws MojoExecutionException
+	 *
+	 * @param removed
+	 *            a removed SVG source or a removed directory
+	 * @return the number of icons whose outputs were deleted
+	 */
+	int removeIcons(File removed) {
+		Path removedPath = removed.getAbsoluteFile().toPath();
+		List<IconEntry> removedIcons = new ArrayList<>();
+		synchronized (icons) {
+			for (IconEntry icon : icons) {
+				if (icon.inputPath.toPath().startsWith(removedPath)) {
+					removedIcons.add(icon);
+				}
+			}
+			icons.removeAll(removedIcons);
+		}
+
+		for (IconEntry icon : removedIcons) {
+			for (double scale : outputScales) {
+				List<File> outputFiles = getOutputFiles(icon, scale);
+				for (File outputFile : outputFiles) {
+					if (outputFile.exists() && !outputFile.delete()) {
+						log.warn("Could not delete output of removed icon: " + outputFile.getAbsolutePath());
+					}
+				}
+
+				if (manifest != null) {
+					manifest.remove(outputFiles);
+				}
+			}
+		}
+
+		if (!removedIcons.isEmpty()) {
+			if (atlas) {
+				writeAtlases(removedIcons.stream().map(icon -> icon.iconRoot).distinct().collect(Collectors.toList()));
+			}
+			saveManifest();
+		}
+		return removedIcons.size();
+	}
+
+	/**
+	 * Drops the outputs kept for identical icons, a later run may render
+	 * them with a changed stylesheet.
 	 */
-	private File generateCSS(String styleName, String inputStylesheet) throws MojoExecutionException {
-		String workingDirectory = System.getProperty("user.dir");
+	private void clearSharedOutputs() {
+		if (sharedOutputs != null) {
+			sharedOutputs.clear();
+		}
+	}
 
-		File styleDir = new File(workingDirectory, "eclipse-css/styles/");
-		File targetStyleSheet = new File(inputStylesheet);
-		File targetStyleDir = targetStyleSheet.getParentFile();
+	private void saveManifest() {
+		if (manifest == null) {
+			return;
+		}
 
 		try {
-			File outputCss = new File(targetStyleDir, styleName + ".css");
+			manifest.save();
+		} catch (IOException e) {
+			log.error("Could not write render manifest: " + e.getMessage(), e);
+		}
+	}
 
-			if (regenerateCss && outputCss.exists() && !outputCss.delete()) {
-				throw new MojoExecutionException(
-						"Could not delete existing CSS during preprocessing: " + outputCss.getAbsolutePath());
+	/**
+	 * <p>
+	 * Determines the directories an icon is written to, at every scale and
+	 * including the disabled variant.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to determine the directories for
+	 * @return the output directories
+	 */
+	private List<File> getOutputDirectories(IconEntry icon) {
+		List<File> directories = new ArrayList<>(outputScales.length * 2);
+		for (double scale : outputScales) {
+			directories.add(getOutputPath(icon, icon.outputPath, scale));
+			if (icon.disabledPath != null) {
+				directories.add(getOutputPath(icon, icon.disabledPath, scale));
 			}
+		}
+		return directories;
+	}
 
-			if (regenerateCss || !outputCss.exists()) {
-				ProcessBuilder procBuilder = new ProcessBuilder("sass", "--sourcemap=none", "-I" + styleDir,
-						targetStyleSheet.getAbsolutePath(), outputCss.getAbsolutePath()).directory(targetStyleDir);
+	/**
+	 * <p>
+	 * Determines the theme directories (eclipse-css/org.eclipse.ui/styles/theme,
+	 * etc) holding the stylesheets of the icon roots.
+	 * </p>
+	 *
+	 * @param iconRoots
+	 *            the icon roots to render
+	 * @return the existing theme directories
+	 */
+	private Set<File> getThemeDirectories(List<File> iconRoots) {
+		Set<File> themeDirs = new TreeSet<>();
+		for (File iconRoot : iconRoots) {
+			File cssRoot = new File(iconRoot.getAbsolutePath().replace("eclipse-svg", "eclipse-css"));
+			File themeDir = new File(cssRoot, "styles/" + stylesheetName);
+			if (themeDir.isDirectory()) {
+				themeDirs.add(themeDir);
+			}
+		}
+		return themeDirs;
+	}
 
-				Process process = procBuilder.start();
+	/**
+	 * <p>
+	 * Packs the written icons of every icon root into atlases, one set per
+	 * scale. The atlas of <code>eclipse-png/org.eclipse.ui</code> is written
+	 * to <code>eclipse-png/org.eclipse.ui.atlas/</code>, as
+	 * <code>atlas-0.png</code>, <code>atlas-1.png</code>, etc with the indexes
+	 * <code>index.properties</code> and <code>index.bin</code>, other scales
+	 * get the usual <code>@2x</code> suffix.
+	 * </p>
+	 *
+	 * @param iconRoots
+	 *            the icon roots that were rendered
+	 */
+	private void writeAtlases(List<File> iconRoots) {
+		Map<String, List<IconEntry>> iconsByRoot = new TreeMap<>();
+		synchronized (icons) {
+			for (IconEntry icon : icons) {
+				iconsByRoot.computeIfAbsent(icon.iconRoot.getName(), name -> new ArrayList<>()).add(icon);
+			}
+		}
+
+		int atlases = 0;
+		for (File iconRoot : iconRoots) {
+			// A root whose last icon was removed only has its atlas deleted
+			List<IconEntry> rootIcons = iconsByRoot.getOrDefault(iconRoot.getName(), List.of());
+			for (double scale : outputScales) {
+				File outputBase = getOutputBase(scale, iconRoot.getName());
+				try {
+					if (writeAtlas(rootIcons, scale, outputBase)) {
+						atlases++;
+					}
+				} catch (IOException e) {
+					log.error("Could not write icon atlas of " + outputBase.getName() + ": " + e.getMessage(), e);
+				}
+			}
+		}
+
+		log.info("Icon atlases: " + atlases + " written");
+	}
 
-				log.info(
-						"Running SASS precompiler: " + procBuilder.command().stream().collect(Collectors.joining(" ")));
-				int waitFor = process.waitFor();
+	/**
+	 * <p>
+	 * Packs the written icons of an icon root at a single scale into an
+	 * atlas.
+	 * </p>
+	 *
+	 * @param rootIcons
+	 *            the icons of the icon root
+	 * @param scale
+	 *            the scale of the atlas
+	 * @param outputBase
+	 *            the directory the icons were written to
+	 * @return true if an atlas was written, false if there were no icons and
+	 *         the atlas was deleted
+	 * @throws IOException
+	 *             if an icon could not be read or the atlas not be written
+	 */
+	private boolean writeAtlas(List<IconEntry> rootIcons, double scale, File outputBase) throws IOException {
+		SortedMap<String, BufferedImage> images = new TreeMap<>();
+		for (IconEntry icon : rootIcons) {
+			for (File file : getOutputFiles(icon, scale)) {
+				if (!file.exists()) {
+					// Failed to render
+					continue;
+				}
 
-				if (waitFor > 0) {
-					throw new MojoExecutionException(
-							"Error generating CSS from SASS input, is SASS installed on your machine?");
+				BufferedImage image = ImageIO.read(file);
+				if (image != null) {
+					String path = outputBase.toPath().relativize(file.toPath()).toString();
+					images.put(path.replace(File.separatorChar, '/'), image);
 				}
 			}
+		}
 
-			return outputCss;
-		} catch (IOException | InterruptedException e) {
-			log.error("Error generating CSS stylesheet from SASS.", e);
-			throw new MojoExecutionException("Error while SASS preprocessing styles: " + e.getMessage(), e);
+		File atlasDir = new File(outputBase.getPath() + ".atlas");
+		String indexName = getOutputName("index", scale).replace(".png", "");
+		if (images.isEmpty()) {
+			deleteAtlasPages(atlasDir, scale, 0);
+			deleteAtlasFile(new File(atlasDir, indexName + ".properties"));
+			deleteAtlasFile(new File(atlasDir, indexName + ".bin"));
+			return false;
+		}
+
+		IconAtlas iconAtlas = IconAtlas.pack(images);
+		List<BufferedImage> pages = iconAtlas.getPages();
+		for (int i = 0; i < pages.size(); i++) {
+			output.write(new File(atlasDir, getOutputName("atlas-" + i, scale)), pngEncoder.encode(pages.get(i)));
+		}
+
+		// Pages of a previous atlas that had more of them
+		deleteAtlasPages(atlasDir, scale, pages.size());
+
+		ByteArrayOutputStream properties = new ByteArrayOutputStream();
+		iconAtlas.writeProperties(properties);
+		output.write(new File(atlasDir, indexName + ".properties"), properties.toByteArray());
+
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		iconAtlas.writeBinary(binary);
+		output.write(new File(atlasDir, indexName + ".bin"), binary.toByteArray());
+		return true;
+	}
+
+	/**
+	 * Deletes the atlas pages of a scale from the supplied page on.
+	 */
+	private void deleteAtlasPages(File atlasDir, double scale, int firstPage) {
+		for (int i = firstPage;; i++) {
+			File stalePage = new File(atlasDir, getOutputName("atlas-" + i, scale));
+			if (!stalePage.exists() || !deleteAtlasFile(stalePage)) {
+				break;
+			}
+		}
+	}
+
+	private boolean deleteAtlasFile(File file) {
+		if (file.exists() && !file.delete()) {
+			log.warn("Could not delete outdated atlas file: " + file.getAbsolutePath());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Writes the phase timings of the rendered icons to the target directory
+	 * and logs the time spent in each phase.
+	 * </p>
+	 */
+	private void writeReport() {
+		StringBuilder phases = new StringBuilder();
+		for (Map.Entry<Phase, Long> phase : report.getPhaseTotals().entrySet()) {
+			if (phases.length() > 0) {
+				phases.append(", ");
+			}
+			phases.append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms");
+		}
+		log.info("Time per phase over " + report.size() + " icons: " + phases);
+
+		File csvFile = new File(workingDirectory, "target/render-report.csv");
+		File jsonFile = new File(workingDirectory, "target/render-report.json");
+		try {
+			report.writeCsv(csvFile);
+			report.writeJson(jsonFile);
+			log.info("Render report: " + jsonFile.getAbsolutePath());
+		} catch (IOException e) {
+			log.error("Could not write render report: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Determines the directory icons of the given scale are rendered into.
+	 * </p>
+	 *
+	 * @param scale
+	 *            the scale of the icons
+	 * @return the output directory
+	 */
+	private File getOutputDir(double scale) {
+		String dirSuffix = "/" + targetDir + "/";
+		if ((scale != 1) && createFragments) {
+			dirSuffix = "/" + targetDir + "-hidpi/";
+		}
+
+		if (stylesheetName != null) {
+			if ((scale != 1) && createFragments) {
+				dirSuffix = "/" + targetDir + "-" + stylesheetName + "-hidpi/";
+			} else {
+				dirSuffix = "/" + targetDir + "-" + stylesheetName + "/";
+			}
+		}
+
+		return new File(workingDirectory + dirSuffix);
+	}
+
+	/**
+	 * <p>
+	 * Determines the directory the icons of an icon root (org.eclipse.ui,
+	 * etc) are rendered into at the given scale, either the bundle's directory
+	 * or its hidpi fragment.
+	 * </p>
+	 *
+	 * @param scale
+	 *            the scale of the icons
+	 * @param dirName
+	 *            the name of the icon root
+	 * @return the output base directory
+	 */
+	private File getOutputBase(double scale, String dirName) {
+		String child = dirName;
+		if ((scale != 1) && createFragments) {
+			child = dirName + ".hidpi";
+		}
+
+		return new File(getOutputDir(scale), child);
+	}
+
+	private void createFragmentFiles(File outputBase, String dirName) {
+		createFile(new File(outputBase, "build.properties"), "bin.includes = META-INF/,icons/,.\n");
+		createFile(new File(outputBase, ".project"),
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + "<projectDescription>\n" + "    <name>" + dirName
+						+ ".hidpi</name>\n" + "    <comment></comment>\n" + "    <projects>\n" + "    </projects>\n"
+						+ "    <buildSpec>\n" + "        <buildCommand>\n"
+						+ "            <name>org.eclipse.pde.ManifestBuilder</name>\n" + "            <arguments>\n"
+						+ "            </arguments>\n" + "        </buildCommand>\n" + "        <buildCommand>\n"
+						+ "            <name>org.eclipse.pde.SchemaBuilder</name>\n" + "            <arguments>\n"
+						+ "            </arguments>\n" + "        </buildCommand>\n" + "    </buildSpec>\n"
+						+ "    <natures>\n" + "        <nature>org.eclipse.pde.PluginNature</nature>\n"
+						+ "    </natures>\n" + "</projectDescription>\n");
+		createFile(new File(outputBase, "META-INF/MANIFEST.MF"), getFragmentManifest(dirName));
+	}
+
+	/**
+	 * <p>
+	 * Creates the manifest of the hidpi fragment of an icon root.
+	 * </p>
+	 *
+	 * @param dirName
+	 *            the name of the icon root
+	 * @return the content of the fragment's MANIFEST.MF
+	 */
+	private String getFragmentManifest(String dirName) {
+		return "Manifest-Version: 1.0\n" + "Bundle-ManifestVersion: 2\n" + "Bundle-Name: " + dirName + ".hidpi\n"
+				+ "Bundle-SymbolicName: " + dirName + ".hidpi\n" + "Bundle-Version: 0.1.0.qualifier\n"
+				+ "Fragment-Host: " + dirName + "\n";
+	}
+
+	/**
+	 * 
+	 * @param file
+	 * @param contents
+	 */
+	private void createFile(File file, String contents) {
+		file.getParentFile().mkdirs();
+		try (FileWriter writer = new FileWriter(file)) {
+			writer.write(contents);
+		} catch (IOException e) {
+			log.error(e);
 		}
 	}
 
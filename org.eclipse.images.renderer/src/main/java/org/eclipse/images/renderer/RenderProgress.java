@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * <p>
+ * Reports the progress of a render run without logging from the render
+ * threads. The threads only bump counters and queue messages, a background
+ * thread periodically logs a summary line with the rate and the estimated
+ * remaining time. Batik warnings are counted by message and logged once at
+ * the end of the run. Per icon details are only logged at debug level or
+ * written to a file.
+ * </p>
+ */
+class RenderProgress {
+
+	/** Maximum number of distinct warnings logged at the end of the run. */
+	private static final int MAX_WARNINGS = 20;
+
+	/**
+	 * Number of queued details after which the render thread adding one
+	 * writes them, so they don't pile up without summary lines.
+	 */
+	private static final int MAX_QUEUED_DETAILS = 1024;
+
+	/** Seconds to wait for a running summary line when closing. */
+	private static final long REPORTER_SHUTDOWN_SECONDS = 10;
+
+	/** Maven logger */
+	private final Log log;
+
+	/** Number of icons discovered so far. */
+	private final LongAdder total = new LongAdder();
+
+	/** Whether all icons of the run were discovered. */
+	private volatile boolean discoveryDone;
+
+	/** The number of icons that failed so far. */
+	private final IntSupplier failed;
+
+	/** Number of icons done, rendered, skipped or failed. */
+	private final LongAdder done = new LongAdder();
+
+	/** Number of times every distinct Batik warning was reported. */
+	private final ConcurrentMap<String, LongAdder> warnings = new ConcurrentHashMap<>();
+
+	/** Per icon details waiting to be written to the detail file. */
+	private final Queue<String> details = new ConcurrentLinkedQueue<>();
+
+	/** The number of details in the queue. */
+	private final AtomicInteger queuedDetails = new AtomicInteger();
+
+	/** Receives the per icon details, null to log them at debug level. */
+	private final BufferedWriter detailWriter;
+
+	/** Logs the summary lines, null if no summary lines are logged. */
+	private final ScheduledExecutorService reporter;
+
+	/** Time the run started at. */
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * @param log
+	 *            the logger to report to
+	 * @param failed
+	 *            supplies the number of icons that failed so far
+	 * @param intervalSeconds
+	 *            the number of seconds between summary lines, 0 to log no
+	 *            summary lines
+	 * @param detailFile
+	 *            the file to write per icon details to, null to log them at
+	 *            debug level
+	 * @throws IOException
+	 *             if the detail file could not be created
+	 */
+	RenderProgress(Log log, IntSupplier failed, int intervalSeconds, File detailFile) throws IOException {
+		this.log = log;
+		this.failed = failed;
+
+		if (detailFile != null) {
+			detailFile.getAbsoluteFile().getParentFile().mkdirs();
+			detailWriter = Files.newBufferedWriter(detailFile.toPath(), StandardCharsets.UTF_8);
+		} else {
+			detailWriter = null;
+		}
+
+		if (intervalSeconds > 0) {
+			reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "render-progress");
+				thread.setDaemon(true);
+				return thread;
+			});
+			reporter.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+		} else {
+			reporter = null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Counts a discovered icon.
+	 * </p>
+	 */
+	void iconFound() {
+		total.increment();
+	}
+
+	/**
+	 * <p>
+	 * Marks the discovery of the icons as finished, the remaining time is
+	 * only estimated from then on.
+	 * </p>
+	 */
+	void discoveryDone() {
+		discoveryDone = true;
+	}
+
+	/**
+	 * <p>
+	 * Counts an icon as done, whether it was rendered, skipped or failed.
+	 * </p>
+	 */
+	void iconDone() {
+		done.increment();
+	}
+
+	/**
+	 * <p>
+	 * Counts a warning reported by Batik. Warnings with the same message are
+	 * logged once, with the number of times they were reported.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon the warning was reported for
+	 * @param message
+	 *            the warning
+	 */
+	void warning(IconEntry icon, String message) {
+		warnings.computeIfAbsent(String.valueOf(message), key -> new LongAdder()).increment();
+		detail(() -> "Icon: " + icon + " - WARN: " + message);
+	}
+
+	/**
+	 * <p>
+	 * Records a detail about a single icon. The message is only built if it
+	 * is written to the detail file or debug logging is enabled. Queued
+	 * details are written with the summary lines, or by the calling thread
+	 * once too many of them are waiting.
+	 * </p>
+	 *
+	 * @param message
+	 *            supplies the message
+	 */
+	void detail(Supplier<String> message) {
+		if (detailWriter != null) {
+			details.add(message.get());
+			if (queuedDetails.incrementAndGet() >= MAX_QUEUED_DETAILS) {
+				writeDetails();
+			}
+		} else if (log.isDebugEnabled()) {
+			log.debug(message.get());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops the summary lines, logs the aggregated warnings and writes the
+	 * remaining details. A summary line being logged is finished first, so
+	 * it neither follows the warnings nor writes to the closed detail file.
+	 * </p>
+	 */
+	void close() {
+		if (reporter != null) {
+			reporter.shutdown();
+			try {
+				if (!reporter.awaitTermination(REPORTER_SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+					log.warn("Progress reporting did not stop in time.");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		List<Map.Entry<String, LongAdder>> sorted = new ArrayList<>(warnings.entrySet());
+		sorted.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+		for (int i = 0; i < sorted.size() && i < MAX_WARNINGS; i++) {
+			Map.Entry<String, LongAdder> warning = sorted.get(i);
+			log.warn("Batik warning (" + warning.getValue().sum() + "x): " + warning.getKey());
+		}
+		if (sorted.size() > MAX_WARNINGS) {
+			log.warn((sorted.size() - MAX_WARNINGS) + " more distinct Batik warnings");
+		}
+
+		if (detailWriter != null) {
+			try (BufferedWriter writer = detailWriter) {
+				flushDetails();
+			} catch (IOException e) {
+				log.warn("Could not write render details: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Logs a summary line, called periodically from the reporter thread.
+	 */
+	private void report() {
+		boolean allFound = discoveryDone;
+		long iconsFound = total.sum();
+		long iconsDone = done.sum();
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		double rate = seconds > 0 ? iconsDone / seconds : 0;
+
+		StringBuilder line = new StringBuilder();
+		line.append("Rendered ").append(iconsDone).append('/').append(iconsFound).append(" icons");
+		if (allFound) {
+			line.append(" (").append(iconsFound > 0 ? iconsDone * 100 / iconsFound : 100).append("%)");
+		} else {
+			line.append(" (still searching)");
+		}
+		line.append(", ").append(failed.getAsInt()).append(" failed, ").append(Math.round(rate))
+				.append(" icons/s");
+		if (allFound && rate > 0 && iconsDone < iconsFound) {
+			line.append(", ETA ").append(Math.round((iconsFound - iconsDone) / rate)).append(" s");
+		}
+		log.info(line);
+
+		if (detailWriter != null) {
+			writeDetails();
+		}
+	}
+
+	private void writeDetails() {
+		try {
+			flushDetails();
+		} catch (IOException e) {
+			log.warn("Could not write render details: " + e.getMessage());
+		}
+	}
+
+	private void flushDetails() throws IOException {
+		synchronized (detailWriter) {
+			String detail;
+			while ((detail = details.poll()) != null) {
+				queuedDetails.decrementAndGet();
+				detailWriter.write(detail);
+				detailWriter.newLine();
+			}
+			detailWriter.flush();
+		}
+	}
+}
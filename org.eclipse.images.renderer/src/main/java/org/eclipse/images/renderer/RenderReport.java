@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>
+ * Collects how long every rendered icon spent in each phase of the render
+ * pipeline and how much memory it allocated, and writes the result as a CSV
+ * file with one line per icon and a JSON summary with percentiles, per bundle
+ * totals and the slowest icons.
+ * </p>
+ */
+class RenderReport {
+
+	/** The phases of rendering an icon, in pipeline order. */
+	enum Phase {
+		/** Reading the SVG source and stylesheet. */
+		read,
+		/** Parsing the SVG source into a document. */
+		parse,
+		/** Removing broken and inline styles from the document. */
+		cleanup,
+		/** Preprocessing the stylesheet with SASS. */
+		css,
+		/** Building the GVT tree and painting it. */
+		transcode,
+		/** Deriving smaller scales from the largest one. */
+		resample,
+		/** Creating the disabled variant. */
+		filter,
+		/** Encoding the PNGs. */
+		encode,
+		/** Writing the PNGs to disk. */
+		write
+	}
+
+	/**
+	 * <p>
+	 * Measures a single icon. The time since the previous lap is added to the
+	 * phase passed to {@link #lap(Phase)}, so the phases can be timed without
+	 * keeping start times around. A timer is confined to the thread rendering
+	 * the icon.
+	 * </p>
+	 */
+	static final class IconTimer {
+
+		/** Measures nothing, shared by all icons if no report is written. */
+		static final IconTimer DISABLED = new IconTimer(false);
+
+		private final boolean enabled;
+
+		private final long[] phaseNanos = new long[Phase.values().length];
+
+		private final long startNanos;
+
+		private final long startAllocated;
+
+		private long lastNanos;
+
+		private boolean rendered;
+
+		IconTimer() {
+			this(true);
+		}
+
+		private IconTimer(boolean enabled) {
+			this.enabled = enabled;
+			startAllocated = enabled ? getAllocatedBytes() : -1;
+			startNanos = enabled ? System.nanoTime() : 0;
+			lastNanos = startNanos;
+		}
+
+		/**
+		 * <p>
+		 * Adds the time since the previous lap to the given phase.
+		 * </p>
+		 *
+		 * @param phase
+		 *            the phase that just ended
+		 */
+		void lap(Phase phase) {
+			if (!enabled) {
+				return;
+			}
+
+			long now = System.nanoTime();
+			phaseNanos[phase.ordinal()] += now - lastNanos;
+			lastNanos = now;
+
+			if (phase != Phase.read) {
+				rendered = true;
+			}
+		}
+
+		/**
+		 * <p>
+		 * Restarts the current lap without accounting the elapsed time to a
+		 * phase.
+		 * </p>
+		 */
+		void skip() {
+			if (!enabled) {
+				return;
+			}
+
+			lastNanos = System.nanoTime();
+		}
+	}
+
+	/** The results of a single icon. */
+	private record IconResult(String bundle, String icon, long totalNanos, long[] phaseNanos, long allocatedBytes) {
+	}
+
+	/**
+	 * Holds the allocation counter of the JVM, null if it isn't supported.
+	 * Counting allocations slows every thread down a little, so it is only
+	 * turned on once the first icon is measured.
+	 */
+	private static final class Allocations {
+		static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+	}
+
+	/** The number of icons listed as the slowest. */
+	private static final int SLOWEST_COUNT = 25;
+
+	/** The percentiles reported for every phase. */
+	private static final int[] PERCENTILES = { 50, 90, 99 };
+
+	/** The results of all rendered icons. */
+	private final Queue<IconResult> results = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * <p>
+	 * Adds the result of an icon to the report. Icons which were skipped
+	 * before being parsed, e.g. because they were up to date, are ignored.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the measured icon
+	 * @param timer
+	 *            the timer the icon was measured with
+	 */
+	void add(IconEntry icon, IconTimer timer) {
+		if (!timer.rendered) {
+			return;
+		}
+
+		long totalNanos = System.nanoTime() - timer.startNanos;
+		long allocated = timer.startAllocated < 0 ? -1 : getAllocatedBytes() - timer.startAllocated;
+
+		String bundle = icon.iconRoot != null ? icon.iconRoot.getName() : "";
+		String name = icon.inputPath.getPath();
+		if (icon.iconRoot != null) {
+			name = icon.iconRoot.toPath().relativize(icon.inputPath.toPath()).toString().replace(File.separatorChar,
+					'/');
+		}
+
+		results.add(new IconResult(bundle, name, totalNanos, timer.phaseNanos.clone(), allocated));
+	}
+
+	/**
+	 * @return the number of icons in the report
+	 */
+	int size() {
+		return results.size();
+	}
+
+	/**
+	 * <p>
+	 * Writes the per icon CSV file.
+	 * </p>
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	void writeCsv(File file) throws IOException {
+		file.getParentFile().mkdirs();
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write("bundle,icon,total_ms");
+			for (Phase phase : Phase.values()) {
+				writer.write("," + phase + "_ms");
+			}
+			writer.write(",allocated_bytes");
+			writer.newLine();
+
+			for (IconResult result : getSortedResults()) {
+				writer.write(csv(result.bundle()) + "," + csv(result.icon()) + "," + millis(result.totalNanos()));
+				for (long nanos : result.phaseNanos()) {
+					writer.write("," + millis(nanos));
+				}
+				writer.write("," + result.allocatedBytes());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes the JSON summary.
+	 * </p>
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	void writeJson(File file) throws IOException {
+		file.getParentFile().mkdirs();
+
+		List<IconResult> sorted = getSortedResults();
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"icons\": ").append(sorted.size()).append(",\n");
+		json.append("  \"allocationMeasured\": ").append(Allocations.THREAD_BEAN != null).append(",\n");
+
+		// Distribution of every phase over all icons
+		json.append("  \"phases\": {\n");
+		appendDistribution(json, "total", sorted.stream().mapToLong(IconResult::totalNanos).toArray(), true);
+		for (Phase phase : Phase.values()) {
+			json.append(",\n");
+			long[] values = sorted.stream().mapToLong(result -> result.phaseNanos()[phase.ordinal()]).toArray();
+			appendDistribution(json, phase.toString(), values, true);
+		}
+		json.append(",\n");
+		appendDistribution(json, "allocatedBytes",
+				sorted.stream().mapToLong(IconResult::allocatedBytes).toArray(), false);
+		json.append("\n  },\n");
+
+		// Totals per bundle, most expensive first
+		Map<String, List<IconResult>> bundles = new TreeMap<>();
+		for (IconResult result : sorted) {
+			bundles.computeIfAbsent(result.bundle(), key -> new ArrayList<>()).add(result);
+		}
+		List<Map.Entry<String, List<IconResult>>> bundleTotals = new ArrayList<>(bundles.entrySet());
+		bundleTotals.sort(Comparator.comparingLong(
+				(Map.Entry<String, List<IconResult>> entry) -> sum(entry.getValue(), -1)).reversed());
+
+		json.append("  \"bundles\": [");
+		for (int i = 0; i < bundleTotals.size(); i++) {
+			Map.Entry<String, List<IconResult>> bundle = bundleTotals.get(i);
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    { \"bundle\": ").append(quote(bundle.getKey()));
+			json.append(", \"icons\": ").append(bundle.getValue().size());
+			json.append(", \"total_ms\": ").append(millis(sum(bundle.getValue(), -1)));
+			for (Phase phase : Phase.values()) {
+				json.append(", \"").append(phase).append("_ms\": ")
+						.append(millis(sum(bundle.getValue(), phase.ordinal())));
+			}
+			json.append(", \"allocatedBytes\": ")
+					.append(bundle.getValue().stream().mapToLong(IconResult::allocatedBytes).sum());
+			json.append(" }");
+		}
+		json.append("\n  ],\n");
+
+		// The slowest icons, the candidates for simplification
+		List<IconResult> slowest = new ArrayList<>(sorted);
+		slowest.sort(Comparator.comparingLong(IconResult::totalNanos).reversed());
+		slowest = slowest.subList(0, Math.min(SLOWEST_COUNT, slowest.size()));
+
+		json.append("  \"slowest\": [");
+		for (int i = 0; i < slowest.size(); i++) {
+			IconResult result = slowest.get(i);
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    { \"bundle\": ").append(quote(result.bundle()));
+			json.append(", \"icon\": ").append(quote(result.icon()));
+			json.append(", \"total_ms\": ").append(millis(result.totalNanos()));
+			for (Phase phase : Phase.values()) {
+				json.append(", \"").append(phase).append("_ms\": ")
+						.append(millis(result.phaseNanos()[phase.ordinal()]));
+			}
+			json.append(", \"allocatedBytes\": ").append(result.allocatedBytes());
+			json.append(" }");
+		}
+		json.append("\n  ]\n");
+		json.append("}\n");
+
+		Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * <p>
+	 * Sums up the time spent in each phase over all icons.
+	 * </p>
+	 *
+	 * @return the total time per phase in milliseconds, in pipeline order
+	 */
+	Map<Phase, Long> getPhaseTotals() {
+		Map<Phase, Long> totals = new EnumMap<>(Phase.class);
+		List<IconResult> all = new ArrayList<>(results);
+		for (Phase phase : Phase.values()) {
+			totals.put(phase, sum(all, phase.ordinal()) / 1_000_000);
+		}
+		return totals;
+	}
+
+	private List<IconResult> getSortedResults() {
+		List<IconResult> sorted = new ArrayList<>(results);
+		sorted.sort(Comparator.comparing(IconResult::bundle).thenComparing(IconResult::icon));
+		return sorted;
+	}
+
+	private static void appendDistribution(StringBuilder json, String name, long[] values, boolean nanos) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		long total = Arrays.stream(sorted).sum();
+
+		json.append("    ").append(quote(name)).append(": { ");
+		json.append(nanos ? "\"total_ms\": " + millis(total) : "\"total\": " + total);
+		for (int percentile : PERCENTILES) {
+			long value = percentile(sorted, percentile);
+			json.append(", \"p").append(percentile).append("\": ").append(nanos ? millis(value) : value);
+		}
+		long max = sorted.length > 0 ? sorted[sorted.length - 1] : 0;
+		json.append(", \"max\": ").append(nanos ? millis(max) : max);
+		json.append(" }");
+	}
+
+	/**
+	 * Nearest rank percentile of sorted values.
+	 */
+	private static long percentile(long[] sorted, int percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Sums the time of a phase, or the total time if the phase is negative.
+	 */
+	private static long sum(List<IconResult> results, int phase) {
+		long sum = 0;
+		for (IconResult result : results) {
+			sum += phase < 0 ? result.totalNanos() : result.phaseNanos()[phase];
+		}
+		return sum;
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private static long getAllocatedBytes() {
+		if (Allocations.THREAD_BEAN == null) {
+			return -1;
+		}
+		return Allocations.THREAD_BEAN.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+				&& bean.isThreadAllocatedMemorySupported()) {
+			if (!bean.isThreadAllocatedMemoryEnabled()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+			}
+			return bean;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,381 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Distributes icons over the render threads while they are discovered. Every
+ * icon gets a cost estimate from its source size, its pixel area at the
+ * rendered scales and its number of elements. The render threads start on the
+ * first icons right away, each takes the most expensive of the icons
+ * discovered so far as soon as it is done with the previous one, so the
+ * expensive icons don't pile up on one thread at the end of the run. The
+ * number of waiting icons is bounded. The source read for the estimate is
+ * handed on to the renderer with the icon, so it is read only once.
+ * </p>
+ * <p>
+ * With a memory budget, every thread reserves the estimated footprint of its
+ * next icon before rendering it and waits while the budget is taken by the
+ * icons the other threads are rendering.
+ * </p>
+ * <p>
+ * If rendering an icon fails, the remaining icons are taken from the queue
+ * without rendering them and further submissions fail, so the run stops
+ * instead of waiting for render threads that are gone.
+ * </p>
+ */
+class RenderScheduler {
+
+	/** Size assumed for icons whose size can't be determined. */
+	private static final double DEFAULT_AREA = 16 * 16;
+
+	/** Finds the root element of an SVG document. */
+	private static final Pattern SVG_ELEMENT = Pattern.compile("<svg\\b[^>]*>");
+
+	/** Finds the width, height and viewBox attributes of the root element. */
+	private static final Pattern SIZE_ATTRIBUTE = Pattern
+			.compile("\\s(width|height|viewBox)\\s*=\\s*[\"']([^\"']*)[\"']");
+
+	/** Number of waiting icons per render thread. */
+	private static final int QUEUE_CAPACITY_PER_THREAD = 32;
+
+	/** Milliseconds between checks of the render threads while submitting. */
+	private static final long SUBMIT_CHECK_MILLIS = 100;
+
+	/**
+	 * An icon with its estimated cost and memory footprint and its source,
+	 * null if it could not be read, a null icon stops a render thread. Every
+	 * icon holds a slot of the bounded queue.
+	 */
+	private record Job(IconEntry icon, byte[] source, double cost, long footprint) {
+	}
+
+	/** The icons waiting to be rendered, the most expensive first. */
+	private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(64,
+			Comparator.comparingDouble(Job::cost).reversed());
+
+	/** Limits the number of icons waiting to be rendered. */
+	private final Semaphore capacity;
+
+	/** Runs the render threads, shut down by the caller. */
+	private final ExecutorService executor;
+
+	/** The render threads, returning their busy time. */
+	private List<Future<Long>> workers;
+
+	/** Time the render threads were started at. */
+	private long startNanos;
+
+	/** The first exception or error thrown by a render thread. */
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/** The number of render threads still taking icons from the queue. */
+	private final AtomicInteger liveWorkers = new AtomicInteger();
+
+	/** The number of threads to render with. */
+	private final int threads;
+
+	/** The scales every icon is rendered at. */
+	private final double[] scales;
+
+	/** Limits the memory of the icons rendered at once, null for no limit. */
+	private final MemoryBudget budget;
+
+	/** Time the render threads spent rendering, summed over all threads. */
+	private long busyNanos;
+
+	/** Time from starting the first icon to finishing the last one. */
+	private long wallNanos;
+
+	/**
+	 * @param threads
+	 *            the number of threads to render with
+	 * @param scales
+	 *            the scales every icon is rendered at
+	 * @param budget
+	 *            limits the memory of the icons rendered at once, null for no
+	 *            limit
+	 * @param executor
+	 *            runs the render threads, needs at least <code>threads</code>
+	 *            threads and is not shut down, so the caller can render on
+	 *            the same threads later
+	 */
+	RenderScheduler(int threads, double[] scales, MemoryBudget budget, ExecutorService executor) {
+		this.threads = threads;
+		this.executor = executor;
+		this.scales = scales;
+		this.budget = budget;
+		this.capacity = new Semaphore(threads * QUEUE_CAPACITY_PER_THREAD);
+	}
+
+	/**
+	 * <p>
+	 * Starts the render threads, which render the submitted icons until
+	 * {@link #finish()} is called.
+	 * </p>
+	 *
+	 * @param renderer
+	 *            renders a single icon from its source, which is null if the
+	 *            renderer has to read it, must handle its own errors
+	 */
+	void start(BiConsumer<IconEntry, byte[]> renderer) {
+		workers = new ArrayList<>(threads);
+		startNanos = System.nanoTime();
+		liveWorkers.set(threads);
+		for (int i = 0; i < threads; i++) {
+			workers.add(executor.submit(() -> {
+				long busy = 0;
+				try {
+					Job job;
+					while ((job = queue.take()).icon() != null) {
+						capacity.release();
+						if (failure.get() != null) {
+							// Only drain the queue, the run fails anyway
+							continue;
+						}
+
+						int reservation = budget != null ? budget.acquire(job.footprint()) : 0;
+						long start = System.nanoTime();
+						try {
+							renderer.accept(job.icon(), job.source());
+						} catch (Throwable e) {
+							// Keep consuming, a stopped thread could block the
+							// submitting threads
+							failure.compareAndSet(null, e);
+						} finally {
+							if (budget != null) {
+								budget.release(reservation);
+							}
+						}
+						busy += System.nanoTime() - start;
+					}
+				} catch (Throwable e) {
+					// Interrupted while waiting, submit() notices once no
+					// thread is left
+					failure.compareAndSet(null, e);
+				} finally {
+					liveWorkers.decrementAndGet();
+				}
+				return busy;
+			}));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Submits a discovered icon for rendering. Blocks while the render
+	 * threads are behind by the maximum number of waiting icons, and fails
+	 * once rendering failed or no render thread is left.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to render
+	 * @throws IllegalStateException
+	 *             if rendering failed, the icon is not submitted
+	 */
+	void submit(IconEntry icon) {
+		Job job = createJob(icon);
+		try {
+			do {
+				checkWorkers();
+			} while (!capacity.tryAcquire(SUBMIT_CHECK_MILLIS, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while submitting " + icon.nameBase, e);
+		}
+		queue.add(job);
+	}
+
+	private void checkWorkers() {
+		Throwable cause = failure.get();
+		if (cause != null) {
+			throw new IllegalStateException("Rendering failed: " + cause, cause);
+		}
+		if (liveWorkers.get() == 0) {
+			throw new IllegalStateException("No render thread is left");
+		}
+	}
+
+	/**
+	 * <p>
+	 * Waits until all submitted icons are rendered and ends the render
+	 * threads, leaving the threads of the executor idle.
+	 * </p>
+	 *
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting
+	 * @throws ExecutionException
+	 *             if rendering an icon threw an exception
+	 */
+	void finish() throws InterruptedException, ExecutionException {
+		// Sorted after every icon, one per thread
+		for (int i = 0; i < threads; i++) {
+			queue.add(new Job(null, null, Double.NEGATIVE_INFINITY, 0));
+		}
+
+		try {
+			busyNanos = 0;
+			for (Future<Long> worker : workers) {
+				busyNanos += worker.get();
+			}
+			wallNanos = System.nanoTime() - startNanos;
+		} finally {
+			// Only does something if waiting was interrupted
+			for (Future<Long> worker : workers) {
+				worker.cancel(true);
+			}
+		}
+
+		if (failure.get() != null) {
+			throw new ExecutionException(failure.get());
+		}
+	}
+
+	/**
+	 * @return the share of the available thread time spent rendering, from 0
+	 *         to 1
+	 */
+	double getUtilization() {
+		if (wallNanos == 0) {
+			return 0;
+		}
+		return Math.min(1, busyNanos / ((double) wallNanos * threads));
+	}
+
+	/**
+	 * Creates the job of an icon, reading its source once for both estimates
+	 * and the renderer.
+	 */
+	private Job createJob(IconEntry icon) {
+		File source = icon.inputPath;
+		if (source == null) {
+			return new Job(icon, null, 0, 0);
+		}
+
+		byte[] content;
+		try {
+			content = Files.readAllBytes(source.toPath());
+		} catch (IOException e) {
+			// Let the renderer report the problem
+			return new Job(icon, null, 0, 0);
+		}
+
+		double area = getArea(content);
+		return new Job(icon, content, estimateCost(icon, content, area),
+				MemoryBudget.estimateFootprint(content.length, area, scales));
+	}
+
+	/**
+	 * <p>
+	 * Estimates the relative cost of rendering an icon. Parsing grows with the
+	 * size of the source, painting with the number of elements and the pixel
+	 * area of every rendered scale, and a disabled variant adds a filter pass
+	 * and another encode per scale.
+	 * </p>
+	 *
+	 * @param icon
+	 *            the icon to estimate
+	 * @param content
+	 *            the content of the icon's source
+	 * @param area
+	 *            the native pixel area of the icon
+	 * @return the estimated cost, only meaningful compared to other icons
+	 */
+	private double estimateCost(IconEntry icon, byte[] content, double area) {
+		int elements = 0;
+		for (byte b : content) {
+			if (b == '<') {
+				elements++;
+			}
+		}
+
+		double pixels = 0;
+		for (double scale : scales) {
+			pixels += area * scale * scale;
+		}
+		if (icon.disabledPath != null) {
+			pixels *= 2;
+		}
+
+		return content.length + elements * pixels / DEFAULT_AREA;
+	}
+
+	/**
+	 * Reads the size of an icon from the attributes of its root element
+	 * without parsing the document.
+	 */
+	private static double getArea(byte[] content) {
+		Matcher svgElement = SVG_ELEMENT.matcher(new String(content, StandardCharsets.UTF_8));
+		if (!svgElement.find()) {
+			return DEFAULT_AREA;
+		}
+
+		double width = -1;
+		double height = -1;
+		double viewBoxArea = -1;
+		Matcher attribute = SIZE_ATTRIBUTE.matcher(svgElement.group());
+		while (attribute.find()) {
+			String value = attribute.group(2).trim();
+			try {
+				switch (attribute.group(1)) {
+				case "width":
+					width = parseLength(value);
+					break;
+				case "height":
+					height = parseLength(value);
+					break;
+				default:
+					String[] viewBox = value.split("[\\s,]+");
+					if (viewBox.length == 4) {
+						viewBoxArea = parseLength(viewBox[2]) * parseLength(viewBox[3]);
+					}
+				}
+			} catch (NumberFormatException e) {
+				// Fall back to the other attributes
+			}
+		}
+
+		if (width > 0 && height > 0) {
+			return width * height;
+		}
+		if (viewBoxArea > 0) {
+			return viewBoxArea;
+		}
+		return DEFAULT_AREA;
+	}
+
+	private static double parseLength(String value) {
+		return Double.parseDouble(value.endsWith("px") ? value.substring(0, value.length() - 2) : value);
+	}
+}
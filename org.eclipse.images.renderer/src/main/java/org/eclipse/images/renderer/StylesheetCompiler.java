@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * <p>
+ * Compiles the SASS stylesheets of a theme to CSS with the <code>sass</code>
+ * command. Every stylesheet is compiled at most once per run: concurrent
+ * requests for the same stylesheet wait for the first one, later requests get
+ * the cached result. Whole theme directories can be compiled up front with a
+ * single invocation of the compiler.
+ * </p>
+ */
+class StylesheetCompiler {
+
+	/** The directory with the shared stylesheets, used as include path. */
+	private final File includeDir;
+
+	/** If true, existing CSS files are compiled again. */
+	private final boolean regenerate;
+
+	/** Maven logger */
+	private final Log log;
+
+	/** The compiled CSS file of every requested stylesheet. */
+	private final ConcurrentMap<File, CompletableFuture<File>> compiled = new ConcurrentHashMap<>();
+
+	/**
+	 * The modification time of every CSS file the compiler wrote, to tell its
+	 * own writes from edits.
+	 */
+	private final ConcurrentMap<File, Long> written = new ConcurrentHashMap<>();
+
+	/** Number of times the compiler was run. */
+	private final AtomicInteger invocations = new AtomicInteger();
+
+	/**
+	 * @param includeDir
+	 *            the directory with the shared stylesheets
+	 * @param regenerate
+	 *            if true, existing CSS files are compiled again, otherwise
+	 *            only missing ones are compiled
+	 * @param log
+	 *            the logger used to report compiler runs
+	 */
+	StylesheetCompiler(File includeDir, boolean regenerate, Log log) {
+		this.includeDir = includeDir;
+		this.regenerate = regenerate;
+		this.log = log;
+	}
+
+	/**
+	 * <p>
+	 * Compiles the stylesheets of whole theme directories, including their
+	 * subdirectories, in a single compiler invocation. The CSS files are
+	 * written next to their sources. Stylesheets compiled this way are not
+	 * compiled again by {@link #compile(File)}.
+	 * </p>
+	 *
+	 * @param themeDirs
+	 *            the theme directories to compile
+	 * @return true if all stylesheets were compiled, false if the compiler
+	 *         failed and stylesheets have to be compiled one by one
+	 */
+	boolean compileAll(Collection<File> themeDirs) {
+		if (themeDirs.isEmpty()) {
+			return true;
+		}
+
+		List<String> command = new ArrayList<>();
+		command.add("sass");
+		command.add("--update");
+		if (regenerate) {
+			command.add("--force");
+		}
+		command.add("--sourcemap=none");
+		command.add("-I" + includeDir);
+		for (File themeDir : themeDirs) {
+			command.add(themeDir.getAbsolutePath() + ":" + themeDir.getAbsolutePath());
+		}
+
+		try {
+			if (run(command, null) != 0) {
+				log.warn("SASS batch compilation failed, compiling stylesheets one by one.");
+				return false;
+			}
+		} catch (IOException e) {
+			log.warn("SASS batch compilation failed, compiling stylesheets one by one: " + e.getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		for (File themeDir : themeDirs) {
+			markCompiled(themeDir);
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Returns the CSS file of a stylesheet, compiling it if required.
+	 * </p>
+	 *
+	 * @param stylesheet
+	 *            the SASS source
+	 * @return the compiled CSS file, next to the source
+	 * @throws MojoExecutionException
+	 *             if the stylesheet could not be compiled
+	 */
+	File compile(File stylesheet) throws MojoExecutionException {
+		File key = stylesheet.getAbsoluteFile();
+
+		CompletableFuture<File> future = compiled.get(key);
+		if (future == null) {
+			CompletableFuture<File> created = new CompletableFuture<>();
+			future = compiled.putIfAbsent(key, created);
+			if (future == null) {
+				// This thread won the race, compile while the others wait
+				future = created;
+				try {
+					created.complete(compileStylesheet(key));
+				} catch (MojoExecutionException | RuntimeException e) {
+					created.completeExceptionally(e);
+				}
+			}
+		}
+
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof MojoExecutionException mojoException) {
+				throw mojoException;
+			}
+			throw new MojoExecutionException("Error while SASS preprocessing styles: " + e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Forgets the compiled CSS of a changed stylesheet and deletes it, so the
+	 * next request compiles it again.
+	 * </p>
+	 *
+	 * @param stylesheet
+	 *            the changed SASS source
+	 */
+	void invalidate(File stylesheet) {
+		CompletableFuture<File> future = compiled.remove(stylesheet.getAbsoluteFile());
+		if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+			return;
+		}
+
+		File css = future.join();
+		if (css.exists() && !css.delete()) {
+			log.warn("Could not delete outdated CSS: " + css.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Forgets the compiled CSS of all stylesheets, e.g. after a shared partial
+	 * changed.
+	 * </p>
+	 */
+	void invalidateAll() {
+		for (File stylesheet : List.copyOf(compiled.keySet())) {
+			invalidate(stylesheet);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Tells whether a CSS file is still as the compiler wrote it, so a watcher
+	 * can ignore the change events of the compiler's own output.
+	 * </p>
+	 *
+	 * @param css
+	 *            the CSS file
+	 * @return true if the file was written by the compiler and not modified
+	 *         since
+	 */
+	boolean isCompilerOutput(File css) {
+		Long lastModified = written.get(css.getAbsoluteFile());
+		return lastModified != null && lastModified == css.lastModified();
+	}
+
+	/**
+	 * @return the number of times the compiler was run
+	 */
+	int getInvocations() {
+		return invocations.get();
+	}
+
+	/**
+	 * @return the number of stylesheets that were requested or batch compiled
+	 */
+	int getStylesheetCount() {
+		return compiled.size();
+	}
+
+	private File compileStylesheet(File stylesheet) throws MojoExecutionException {
+		String name = stylesheet.getName().replaceFirst("\\.scss$", "");
+		File stylesheetDir = stylesheet.getParentFile();
+		File outputCss = new File(stylesheetDir, name + ".css");
+
+		try {
+			if (regenerate && outputCss.exists() && !outputCss.delete()) {
+				throw new MojoExecutionException(
+						"Could not delete existing CSS during preprocessing: " + outputCss.getAbsolutePath());
+			}
+
+			if (regenerate || !outputCss.exists()) {
+				List<String> command = List.of("sass", "--sourcemap=none", "-I" + includeDir,
+						stylesheet.getAbsolutePath(), outputCss.getAbsolutePath());
+
+				if (run(command, stylesheetDir) > 0) {
+					throw new MojoExecutionException(
+							"Error generating CSS from SASS input, is SASS installed on your machine?");
+				}
+				written.put(outputCss.getAbsoluteFile(), outputCss.lastModified());
+			}
+
+			return outputCss;
+		} catch (IOException e) {
+			log.error("Error generating CSS stylesheet from SASS.", e);
+			throw new MojoExecutionException("Error while SASS preprocessing styles: " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while SASS preprocessing styles", e);
+		}
+	}
+
+	private int run(List<String> command, File directory) throws IOException, InterruptedException {
+		ProcessBuilder procBuilder = new ProcessBuilder(command).directory(directory).inheritIO();
+
+		log.info("Running SASS precompiler: " + command.stream().collect(Collectors.joining(" ")));
+		invocations.incrementAndGet();
+
+		Process process = procBuilder.start();
+		return process.waitFor();
+	}
+
+	/**
+	 * Registers the CSS files of a batch compiled directory.
+	 */
+	private void markCompiled(File dir) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+
+		for (File child : children) {
+			if (child.isDirectory()) {
+				markCompiled(child);
+				continue;
+			}
+
+			String name = child.getName();
+			if (!name.endsWith(".scss") || name.startsWith("_")) {
+				continue;
+			}
+
+			File css = new File(dir, name.substring(0, name.length() - ".scss".length()) + ".css");
+			if (css.exists()) {
+				compiled.putIfAbsent(child.getAbsoluteFile(), CompletableFuture.completedFuture(css));
+			}
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.ImageIO;
+
+import com.mortennobel.imagescaling.ResampleFilters;
+import com.mortennobel.imagescaling.ResampleOp;
+
+/**
+ * <p>
+ * Keeps the resampled gallery tiles of the icons on disk, so a gallery of
+ * unchanged icons is composed without decoding and resampling them again.
+ * Tiles are keyed by the hash of the source image and stored per size and
+ * resampling mode, as raw ARGB pixels:
+ * </p>
+ *
+ * <pre>
+ * int magic ("EIGT"), int version, int width, int height, width * height int pixels
+ * </pre>
+ */
+class TileCache {
+
+	/** First bytes of a cache entry. */
+	static final int MAGIC = 0x45494754;
+
+	/**
+	 * Version of the cache entries, to be changed whenever the format or the
+	 * resampling of the tiles changes.
+	 */
+	static final int VERSION = 1;
+
+	/** The filter the tiles are resampled with, part of their key. */
+	static final String FILTER = "lanczos3";
+
+	/** Size of the header of an entry in bytes. */
+	private static final int HEADER_SIZE = 16;
+
+	/** The directory the entries are stored in. */
+	private final File directory;
+
+	/** Number of tiles read from the cache. */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of tiles that had to be resampled. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param directory
+	 *            the directory the entries are stored in, created when the
+	 *            first entry is stored
+	 */
+	TileCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * <p>
+	 * Returns the tile of an image, from the cache or resampled and stored.
+	 * Safe to call from several threads.
+	 * </p>
+	 *
+	 * @param source
+	 *            the image file
+	 * @param size
+	 *            the width and height of the tile
+	 * @param keepSmaller
+	 *            if true, an image which already fits is kept as it is
+	 * @return the tile, or null if the image could not be decoded
+	 * @throws IOException
+	 *             if the image could not be read
+	 */
+	BufferedImage getTile(File source, int size, boolean keepSmaller) throws IOException {
+		byte[] imageBytes = Files.readAllBytes(source.toPath());
+		Path entry = getEntry(DocumentCache.computeKey(imageBytes), size, keepSmaller);
+
+		try {
+			BufferedImage tile = decode(Files.readAllBytes(entry));
+			hits.increment();
+			return tile;
+		} catch (NoSuchFileException e) {
+			// Not cached yet
+		} catch (IOException e) {
+			// Damaged, stored again
+		}
+		misses.increment();
+
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+		if (image == null) {
+			return null;
+		}
+
+		BufferedImage tile = createTile(image, size, keepSmaller);
+		Files.createDirectories(entry.getParent());
+
+		// Readers only ever see complete entries
+		Path temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, encode(tile));
+			Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return tile;
+	}
+
+	/**
+	 * <p>
+	 * Resamples an image into a tile with a Lanczos3 filter. The galleries
+	 * are created in parallel, so the resampling runs on the calling thread.
+	 * </p>
+	 *
+	 * @param image
+	 *            the image to resample
+	 * @param size
+	 *            the width and height of the tile
+	 * @param keepSmaller
+	 *            if true, an image which already fits is kept as it is
+	 * @return the tile
+	 */
+	static BufferedImage createTile(BufferedImage image, int size, boolean keepSmaller) {
+		if (keepSmaller && image.getWidth() <= size && image.getHeight() <= size) {
+			return image;
+		}
+
+		ResampleOp resampleOp = new ResampleOp(size, size);
+		resampleOp.setFilter(ResampleFilters.getLanczos3Filter());
+		// resampleOp.setUnsharpenMask(AdvancedResizeOp.UnsharpenMask.Oversharpened);
+		resampleOp.setNumberOfThreads(1);
+		return resampleOp.filter(image, null);
+	}
+
+	/**
+	 * @return the number of tiles read from the cache
+	 */
+	long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of tiles that were not cached
+	 */
+	long getMisses() {
+		return misses.sum();
+	}
+
+	private Path getEntry(String key, int size, boolean keepSmaller) {
+		String settings = FILTER + "-" + size + (keepSmaller ? "-fit" : "");
+		return new File(new File(new File(directory, settings), key.substring(0, 2)), key + ".tile").toPath();
+	}
+
+	private static byte[] encode(BufferedImage tile) {
+		int width = tile.getWidth();
+		int height = tile.getHeight();
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + width * height * 4);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+		buffer.asIntBuffer().put(tile.getRGB(0, 0, width, height, null, 0, width));
+		return buffer.array();
+	}
+
+	private static BufferedImage decode(byte[] data) throws IOException {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Not a tile cache entry");
+			}
+
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			IntBuffer pixels = buffer.asIntBuffer();
+			if (width <= 0 || height <= 0 || pixels.remaining() != width * height) {
+				throw new IOException("Damaged tile cache entry");
+			}
+
+			int[] argb = new int[width * height];
+			pixels.get(argb);
+			BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			tile.setRGB(0, 0, width, height, argb, 0, width);
+			return tile;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated tile cache entry", e);
+		}
+	}
+}
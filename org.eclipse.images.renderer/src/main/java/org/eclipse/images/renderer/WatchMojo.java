@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * <p>
+ * Mojo which renders all icons like the render mojo and then keeps running,
+ * rendering icons again as soon as their SVG sources or stylesheets change.
+ * Outputs of removed sources are deleted. The JVM, the loaded classes and the
+ * parsers and renderers of the render threads stay warm between changes, so
+ * a changed icon is rendered again within a fraction of a second.
+ * </p>
+ */
+@Mojo(name = "watch-icons")
+@Execute(goal = "watch-icons", phase = LifecyclePhase.GENERATE_RESOURCES)
+public class WatchMojo extends RenderMojo {
+
+	/** Time to wait for more events after a change, editors write in bursts. */
+	private static final long SETTLE_MILLIS = 50;
+
+	/** The directories being watched. */
+	private final Map<WatchKey, Path> watchedDirs = new LinkedHashMap<>();
+
+	/**
+	 * Renders on the threads of the initial run, their render contexts are
+	 * warm. Archives can't be watched, their threads are shut down.
+	 */
+	@Override
+	boolean keepRenderThreads() {
+		return !isArchive();
+	}
+
+	/**
+	 * @see RenderMojo#execute()
+	 */
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		super.execute();
+
+		File sourceRoot = getSourceRoot();
+		if (sourceRoot == null) {
+			return;
+		}
+
+		if (isArchive()) {
+			throw new MojoExecutionException("Icons can't be watched while they are written into archives.");
+		}
+		ExecutorService executor = getRenderThreads();
+		if (executor == null) {
+			// The source directory doesn't exist, nothing was rendered
+			return;
+		}
+
+		File cssRoot = null;
+		if (getStylesheetCompiler() != null) {
+			cssRoot = new File(sourceRoot.getParentFile(), "eclipse-css");
+		}
+
+		try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			register(watchService, sourceRoot.toPath());
+			if (cssRoot != null && cssRoot.isDirectory()) {
+				register(watchService, cssRoot.toPath());
+			}
+
+			log.info("Watching " + watchedDirs.size() + " directories for changes, press Ctrl+C to stop.");
+
+			while (true) {
+				Set<Path> changed = new LinkedHashSet<>();
+				Set<Path> removed = new LinkedHashSet<>();
+				boolean overflow = poll(watchService, watchService.take(), changed, removed);
+
+				// Collect the rest of the burst
+				WatchKey key;
+				while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					overflow |= poll(watchService, key, changed, removed);
+				}
+
+				long start = System.currentTimeMillis();
+				int count = overflow ? renderAll(executor) : render(changed, removed, executor);
+				if (count > 0) {
+					log.info("Updated " + count + " icons, took " + (System.currentTimeMillis() - start) + " ms.");
+				}
+			}
+		} catch (IOException e) {
+			throw new MojoExecutionException("Error while watching icons: " + e.getMessage(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Updates the icons affected by a set of changes.
+	 * </p>
+	 *
+	 * @return the number of icons rendered or removed
+	 */
+	private int render(Set<Path> changed, Set<Path> removed, ExecutorService executor) throws IOException,
+			InterruptedException {
+		int count = 0;
+		for (Path path : removed) {
+			// Stylesheets are compiled again when their icons are rendered
+			if (path.startsWith(getSourceRoot().toPath())) {
+				count += removeIcons(path.toFile());
+			}
+		}
+
+		Map<File, IconEntry> icons = new LinkedHashMap<>();
+		List<File> svgFiles = new ArrayList<>();
+		for (Path path : changed) {
+			String name = path.getFileName().toString();
+			if (name.endsWith(".svg")) {
+				svgFiles.add(path.toFile());
+			} else if (name.endsWith(".scss")) {
+				StylesheetCompiler compiler = getStylesheetCompiler();
+				if (name.startsWith("_")) {
+					// A shared partial, any stylesheet may import it
+					compiler.invalidateAll();
+					addAll(icons, getIconsUsingStylesheet(null));
+				} else {
+					compiler.invalidate(path.toFile());
+					addAll(icons, getIconsUsingStylesheet(path.toFile()));
+				}
+			} else if (name.endsWith(".css")) {
+				// Rendering compiles invalidated stylesheets again, their
+				// events are not edits
+				StylesheetCompiler compiler = getStylesheetCompiler();
+				if (compiler != null && compiler.isCompilerOutput(path.toFile())) {
+					continue;
+				}
+
+				// The compiled CSS was edited directly
+				File stylesheet = new File(path.toString().replaceFirst("\\.css$", ".scss"));
+				addAll(icons, getIconsUsingStylesheet(stylesheet));
+			}
+		}
+
+		// Resolved together, every icon root is searched once
+		for (IconEntry icon : findIcons(svgFiles)) {
+			icons.put(icon.inputPath, icon);
+		}
+
+		if (!icons.isEmpty()) {
+			renderIcons(new ArrayList<>(icons.values()), executor);
+		}
+		return count + icons.size();
+	}
+
+	/**
+	 * <p>
+	 * Searches the whole source tree again and renders every icon, used if
+	 * changes were lost.
+	 * </p>
+	 */
+	private int renderAll(ExecutorService executor) throws IOException, InterruptedException {
+		log.warn("Too many changes at once, rendering all icons.");
+
+		List<File> svgFiles = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(getSourceRoot().toPath())) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				if (path.toString().endsWith(".svg")) {
+					svgFiles.add(path.toFile());
+				}
+			}
+		}
+		List<IconEntry> icons = findIcons(svgFiles);
+
+		if (getStylesheetCompiler() != null) {
+			getStylesheetCompiler().invalidateAll();
+		}
+		renderIcons(icons, executor);
+		return icons.size();
+	}
+
+	/**
+	 * <p>
+	 * Collects the events of a watch key. New directories are watched as
+	 * well and their content treated as changed.
+	 * </p>
+	 *
+	 * @return true if events were lost
+	 */
+	private boolean poll(WatchService watchService, WatchKey key, Set<Path> changed, Set<Path> removed)
+			throws IOException {
+		Path dir = watchedDirs.get(key);
+		boolean overflow = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				overflow = true;
+				continue;
+			}
+
+			Path path = dir.resolve((Path) event.context());
+			if (event.kind() == ENTRY_DELETE) {
+				removed.add(path);
+				changed.remove(path);
+			} else if (Files.isDirectory(path)) {
+				if (event.kind() == ENTRY_CREATE) {
+					register(watchService, path);
+					try (Stream<Path> files = Files.walk(path)) {
+						files.filter(Files::isRegularFile).forEach(changed::add);
+					}
+				}
+			} else {
+				changed.add(path);
+				removed.remove(path);
+			}
+		}
+
+		if (!key.reset()) {
+			watchedDirs.remove(key);
+		}
+		return overflow;
+	}
+
+	private void register(WatchService watchService, Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private static void addAll(Map<File, IconEntry> icons, List<IconEntry> added) {
+		for (IconEntry icon : added) {
+			icons.putIfAbsent(icon.inputPath, icon);
+		}
+	}
+}
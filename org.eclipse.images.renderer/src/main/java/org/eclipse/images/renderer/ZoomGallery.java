@@ -0,0 +1,482 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.images.renderer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * <p>
+ * Writes the icons of all sets as a zoomable gallery: a pyramid of 256 pixel
+ * tiles and a static HTML viewer which loads only the tiles in view. The full
+ * gallery image is never composed, every tile is drawn from the icons it
+ * shows.
+ * </p>
+ * <p>
+ * Level 0 holds the icons at their gallery size, every following level halves
+ * the one before until a single tile remains. The tiles of a level are
+ * written in parallel. Each tile is keyed by what it shows, the icon hashes
+ * and positions for level 0 and the keys of the four tiles below it for the
+ * others. Tiles whose key did not change since the last run are not written
+ * again. The layout is:
+ * </p>
+ *
+ * <pre>
+ * index.html          the viewer
+ * gallery.js          the size of the gallery, its levels and the position of every icon
+ * tiles.properties    the key of every tile
+ * tiles/level/column_row.png
+ * </pre>
+ */
+class ZoomGallery {
+
+	/** Width and height of a tile. */
+	static final int TILE_SIZE = 256;
+
+	/** Number of icons per row. */
+	private static final int COLUMNS = 64;
+
+	/** Space around every icon. */
+	private static final int MARGIN = 3;
+
+	/** Height of the title of a set. */
+	private static final int TITLE_HEIGHT = 24;
+
+	/**
+	 * Prefix of the key of a tile with icons that could not be drawn, it
+	 * never matches, so the next run draws the tile again.
+	 */
+	private static final String INCOMPLETE = "incomplete-";
+
+	/** The viewer, copied next to the tiles. */
+	private static final String VIEWER = "zoom-gallery.html";
+
+	/**
+	 * <p>
+	 * Reads the image of an icon at the size of a gallery cell.
+	 * </p>
+	 */
+	interface IconReader {
+		BufferedImage read(File file, int size) throws IOException;
+	}
+
+	/** An icon or set title, drawn at a position of level 0. */
+	private record Item(int x, int y, String title, IconEntry icon, String name) {
+	}
+
+	private final File outputDir;
+
+	private final int iconSize;
+
+	private final IconReader reader;
+
+	private final PngEncoder pngEncoder;
+
+	private final Log log;
+
+	/** Width and height of a cell of the grid. */
+	private final int cellSize;
+
+	/** The items of every level 0 tile, by tile index. */
+	private final Map<Long, List<Item>> tileItems = new HashMap<>();
+
+	/** The icons in the order they are laid out. */
+	private final List<Item> icons = new ArrayList<>();
+
+	private int width;
+
+	private int height;
+
+	/** The keys of the tiles of the last run, by tile path. */
+	private final Properties previousKeys = new Properties();
+
+	/** The keys of the tiles of this run, by tile path. */
+	private final Map<String, String> keys = new ConcurrentHashMap<>();
+
+	/** Number of tiles written in this run. */
+	private final AtomicInteger written = new AtomicInteger();
+
+	/**
+	 * @param outputDir
+	 *            the directory of the gallery
+	 * @param iconSize
+	 *            the size the icons are shown at in level 0
+	 * @param reader
+	 *            reads the icons, resampled to the icon size
+	 * @param pngEncoder
+	 *            encodes the tiles
+	 * @param log
+	 *            the Maven log
+	 */
+	ZoomGallery(File outputDir, int iconSize, IconReader reader, PngEncoder pngEncoder, Log log) {
+		this.outputDir = outputDir;
+		this.iconSize = iconSize;
+		this.reader = reader;
+		this.pngEncoder = pngEncoder;
+		this.log = log;
+		this.cellSize = iconSize + MARGIN * 2;
+	}
+
+	/**
+	 * <p>
+	 * Writes the gallery, reusing the unchanged tiles of the last run.
+	 * </p>
+	 *
+	 * @param iconSets
+	 *            the icons by set name
+	 * @param executor
+	 *            the pool the tiles are written on
+	 * @return the number of tiles written
+	 * @throws IOException
+	 *             if the viewer or the index could not be written
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the tiles
+	 * @throws ExecutionException
+	 *             if a tile failed
+	 */
+	int write(Map<String, List<IconEntry>> iconSets, ExecutorService executor)
+			throws IOException, InterruptedException, ExecutionException {
+		layout(iconSets);
+
+		File index = new File(outputDir, "tiles.properties");
+		if (index.isFile()) {
+			try (Reader in = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+				previousKeys.load(in);
+			}
+		}
+
+		int columns = ceilDiv(width, TILE_SIZE);
+		int rows = ceilDiv(height, TILE_SIZE);
+		int level = 0;
+		while (true) {
+			List<Future<?>> tiles = new ArrayList<>();
+			for (int row = 0; row < rows; row++) {
+				for (int column = 0; column < columns; column++) {
+					int tileLevel = level;
+					int tileColumn = column;
+					int tileRow = row;
+					tiles.add(executor.submit(() -> {
+						writeTile(tileLevel, tileColumn, tileRow);
+						return null;
+					}));
+				}
+			}
+			for (Future<?> tile : tiles) {
+				tile.get();
+			}
+
+			if (columns == 1 && rows == 1) {
+				break;
+			}
+			columns = ceilDiv(columns, 2);
+			rows = ceilDiv(rows, 2);
+			level++;
+		}
+
+		// Tiles of a larger layout are gone from the index
+		for (String path : previousKeys.stringPropertyNames()) {
+			if (!keys.containsKey(path)) {
+				Files.deleteIfExists(getTileFile(path).toPath());
+			}
+		}
+
+		writeIndex(index);
+		writeScript(level + 1);
+		try (InputStream viewer = ZoomGallery.class.getResourceAsStream(VIEWER)) {
+			Files.copy(viewer, new File(outputDir, "index.html").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return written.get();
+	}
+
+	/**
+	 * <p>
+	 * Places the title and the icons of every set, one set below the other.
+	 * </p>
+	 */
+	private void layout(Map<String, List<IconEntry>> iconSets) {
+		width = COLUMNS * cellSize;
+
+		int y = 0;
+		for (Map.Entry<String, List<IconEntry>> set : new TreeMap<>(iconSets).entrySet()) {
+			List<IconEntry> setIcons = new ArrayList<>();
+			for (IconEntry icon : set.getValue()) {
+				if (icon.inputPath != null) {
+					setIcons.add(icon);
+				}
+			}
+			if (setIcons.isEmpty()) {
+				continue;
+			}
+			Collections.sort(setIcons);
+
+			// Titles are clipped by every tile of their row
+			Item title = new Item(MARGIN, y, set.getKey() + " - Count: " + setIcons.size(), null, null);
+			for (int column = 0; column < ceilDiv(width, TILE_SIZE); column++) {
+				addToTiles(title, column * TILE_SIZE, TILE_SIZE, TITLE_HEIGHT);
+			}
+			y += TITLE_HEIGHT;
+
+			for (int i = 0; i < setIcons.size(); i++) {
+				IconEntry icon = setIcons.get(i);
+				Item item = new Item((i % COLUMNS) * cellSize, y + (i / COLUMNS) * cellSize, null, icon,
+						set.getKey() + "/" + icon.nameBase);
+				icons.add(item);
+				addToTiles(item, item.x(), cellSize, cellSize);
+			}
+			y += ceilDiv(setIcons.size(), COLUMNS) * cellSize;
+		}
+		height = Math.max(1, y);
+	}
+
+	/** Adds an item to every level 0 tile its bounds reach into. */
+	private void addToTiles(Item item, int x, int itemWidth, int itemHeight) {
+		for (int row = item.y() / TILE_SIZE; row <= (item.y() + itemHeight - 1) / TILE_SIZE; row++) {
+			for (int column = x / TILE_SIZE; column <= (x + itemWidth - 1) / TILE_SIZE; column++) {
+				tileItems.computeIfAbsent(getTileIndex(column, row), k -> new ArrayList<>()).add(item);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes a tile unless it shows the same as in the last run.
+	 * </p>
+	 */
+	private void writeTile(int level, int column, int row) throws IOException {
+		String path = level + "/" + column + "_" + row;
+		String key = level == 0 ? getBaseKey(column, row) : getParentKey(level, column, row);
+		keys.put(path, key);
+
+		File file = getTileFile(path);
+		if (key.equals(previousKeys.getProperty(path)) && file.isFile()) {
+			return;
+		}
+
+		BufferedImage tile;
+		if (level == 0) {
+			tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+			if (!drawBaseTile(tile, column, row)) {
+				keys.put(path, INCOMPLETE + key);
+			}
+		} else {
+			tile = drawParentTile(level, column, row);
+		}
+		Files.createDirectories(file.getParentFile().toPath());
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+			pngEncoder.encode(tile, out);
+		}
+		written.incrementAndGet();
+	}
+
+	/**
+	 * @return the key of a level 0 tile, from the position and content of its
+	 *         items
+	 */
+	private String getBaseKey(int column, int row) throws IOException {
+		StringBuilder description = new StringBuilder();
+		for (Item item : tileItems.getOrDefault(getTileIndex(column, row), List.of())) {
+			description.append(item.x()).append(',').append(item.y()).append(',');
+			if (item.icon() != null) {
+				description.append(DocumentCache.computeKey(Files.readAllBytes(item.icon().inputPath.toPath())));
+			} else {
+				description.append(item.title());
+			}
+			description.append('\n');
+		}
+		return DocumentCache.computeKey(description.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the key of a tile above level 0, from the keys of the tiles it
+	 *         halves
+	 */
+	private String getParentKey(int level, int column, int row) {
+		StringBuilder description = new StringBuilder();
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 2; x++) {
+				String child = keys.get((level - 1) + "/" + (column * 2 + x) + "_" + (row * 2 + y));
+				description.append(child != null ? child : "-").append('\n');
+			}
+		}
+		return DocumentCache.computeKey(description.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * <p>
+	 * Draws the items of a level 0 tile, in gallery coordinates clipped to
+	 * the tile. The background stays transparent, the viewer provides it.
+	 * </p>
+	 *
+	 * @return false if an icon could not be drawn
+	 */
+	private boolean drawBaseTile(BufferedImage tile, int column, int row) {
+		boolean complete = true;
+		Graphics2D g = tile.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.translate(-column * TILE_SIZE, -row * TILE_SIZE);
+		g.setColor(Color.GRAY);
+
+		for (Item item : tileItems.getOrDefault(getTileIndex(column, row), List.of())) {
+			if (item.title() != null) {
+				g.drawString(item.title(), item.x(), item.y() + 17);
+				continue;
+			}
+
+			try {
+				BufferedImage image = reader.read(item.icon().inputPath, iconSize);
+				if (image == null) {
+					throw new IOException("Unsupported image: " + item.icon().inputPath);
+				}
+				g.drawImage(image, item.x() + MARGIN, item.y() + MARGIN, null);
+			} catch (IOException e) {
+				log.error("Error rendering icon for gallery: " + item.icon().inputPath.getAbsolutePath(), e);
+				complete = false;
+			}
+		}
+		g.dispose();
+		return complete;
+	}
+
+	/**
+	 * <p>
+	 * Halves the four tiles below a tile, averaging the premultiplied pixels
+	 * of every 2x2 block.
+	 * </p>
+	 */
+	private BufferedImage drawParentTile(int level, int column, int row) throws IOException {
+		int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+		int half = TILE_SIZE / 2;
+
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 2; x++) {
+				File childFile = getTileFile((level - 1) + "/" + (column * 2 + x) + "_" + (row * 2 + y));
+				if (!childFile.isFile()) {
+					continue;
+				}
+
+				BufferedImage child = ImageIO.read(childFile);
+				if (child == null) {
+					throw new IOException("Unsupported image: " + childFile);
+				}
+				int[] childPixels = child.getRGB(0, 0, TILE_SIZE, TILE_SIZE, null, 0, TILE_SIZE);
+
+				for (int cy = 0; cy < half; cy++) {
+					for (int cx = 0; cx < half; cx++) {
+						int i = cy * 2 * TILE_SIZE + cx * 2;
+						pixels[(y * half + cy) * TILE_SIZE + x * half + cx] = average(childPixels[i],
+								childPixels[i + 1], childPixels[i + TILE_SIZE], childPixels[i + TILE_SIZE + 1]);
+					}
+				}
+			}
+		}
+
+		BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+		tile.setRGB(0, 0, TILE_SIZE, TILE_SIZE, pixels, 0, TILE_SIZE);
+		return tile;
+	}
+
+	private static int average(int p1, int p2, int p3, int p4) {
+		int alpha = (p1 >>> 24) + (p2 >>> 24) + (p3 >>> 24) + (p4 >>> 24);
+		if (alpha == 0) {
+			return 0;
+		}
+
+		int argb = (alpha + 2) / 4 << 24;
+		for (int shift = 0; shift < 24; shift += 8) {
+			int sum = ((p1 >> shift) & 0xff) * (p1 >>> 24) + ((p2 >> shift) & 0xff) * (p2 >>> 24)
+					+ ((p3 >> shift) & 0xff) * (p3 >>> 24) + ((p4 >> shift) & 0xff) * (p4 >>> 24);
+			argb |= Math.min(255, (sum + alpha / 2) / alpha) << shift;
+		}
+		return argb;
+	}
+
+	private void writeIndex(File index) throws IOException {
+		Path temp = Files.createTempFile(outputDir.toPath(), "tiles", ".tmp");
+		try {
+			try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, String> entry : new TreeMap<>(keys).entrySet()) {
+					out.write(entry.getKey() + "=" + entry.getValue() + "\n");
+				}
+			}
+			Files.move(temp, index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes the description of the gallery for the viewer, a script so the
+	 * viewer also works when opened from the file system.
+	 * </p>
+	 */
+	private void writeScript(int levels) throws IOException {
+		StringBuilder script = new StringBuilder();
+		script.append("var gallery = {\n");
+		script.append("  width: ").append(width).append(",\n");
+		script.append("  height: ").append(height).append(",\n");
+		script.append("  tileSize: ").append(TILE_SIZE).append(",\n");
+		script.append("  levels: ").append(levels).append(",\n");
+		script.append("  cellSize: ").append(cellSize).append(",\n");
+		script.append("  icons: [\n");
+		for (Item icon : icons) {
+			script.append("    [").append(icon.x()).append(", ").append(icon.y()).append(", \"")
+					.append(icon.name().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"],\n");
+		}
+		script.append("  ]\n};\n");
+		Files.writeString(new File(outputDir, "gallery.js").toPath(), script, StandardCharsets.UTF_8);
+	}
+
+	private File getTileFile(String path) {
+		return new File(outputDir, "tiles/" + path + ".png");
+	}
+
+	private static long getTileIndex(int column, int row) {
+		return (long) row << 32 | column;
+	}
+
+	private static int ceilDiv(int value, int divisor) {
+		return (value + divisor - 1) / divisor;
+	}
+}
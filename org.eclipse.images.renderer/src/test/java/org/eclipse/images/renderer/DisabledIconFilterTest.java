@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * (c) Copyright 2026 l33t labs LLC and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     l33t labs LLC and others - initial contribution
+ *******************************************************************************/
+package org.eclipse.images.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.jhlabs.image.ContrastFilter;
+import com.jhlabs.image.GrayscaleFilter;
+import com.jhlabs.image.HSBAdjustFilter;
+
+/**
+ * <p>
+ * Checks that {@link DisabledIconFilter} produces exactly the pixels of the
+ * jhlabs filter chain it replaced, for committed icons of the images project
+ * and for every possible RGB value.
+ * </p>
+ */
+public class DisabledIconFilterTest {
+
+	/** The rendered icons of the images project, next to this module. */
+	private static final File PNG_DIRECTORY = new File("../org.eclipse.images/eclipse-png");
+
+	@Test
+	public void filterMatchesJhlabsChainOnIcons() throws IOException {
+		assertMatchesJhlabsChain(readIcon("org.eclipse.jdt.ui/icons/full/obj16/class_obj.png"));
+		assertMatchesJhlabsChain(readIcon("org.eclipse.jdt.ui/icons/full/obj16/class_obj@2x.png"));
+		assertMatchesJhlabsChain(readIcon("org.eclipse.ui.ide/icons/full/wizban/importdir_wiz.png"));
+		assertMatchesJhlabsChain(readIcon("org.eclipse.ui.ide/icons/full/wizban/importdir_wiz@2x.png"));
+	}
+
+	@Test
+	public void filterMatchesJhlabsChainOnAllColors() {
+		assertMatchesJhlabsChain(createAllColors());
+	}
+
+	@Test
+	public void filterKeepsAlpha() {
+		BufferedImage image = createAllColors();
+		int[] before = pixels(image).clone();
+		DisabledIconFilter.filter(image);
+
+		int[] after = pixels(image);
+		for (int i = 0; i < before.length; i++) {
+			assertEquals(before[i] >>> 24, after[i] >>> 24, "alpha of pixel " + i);
+		}
+	}
+
+	private static void assertMatchesJhlabsChain(BufferedImage image) {
+		BufferedImage expected = filterWithJhlabs(image);
+
+		BufferedImage actual = copy(image);
+		DisabledIconFilter.filter(actual);
+
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int expectedRgb = expected.getRGB(x, y);
+				int actualRgb = actual.getRGB(x, y);
+				if (expectedRgb != actualRgb) {
+					assertEquals(Integer.toHexString(expectedRgb), Integer.toHexString(actualRgb),
+							"pixel " + x + "," + y);
+				}
+			}
+		}
+	}
+
+	private static BufferedImage filterWithJhlabs(BufferedImage image) {
+		GrayscaleFilter grayFilter = new GrayscaleFilter();
+
+		HSBAdjustFilter desaturator = new HSBAdjustFilter();
+		desaturator.setSFactor(0.0f);
+
+		ContrastFilter decontrast = new ContrastFilter();
+		decontrast.setBrightness(DisabledIconFilter.BRIGHTNESS);
+		decontrast.setContrast(DisabledIconFilter.CONTRAST);
+
+		return decontrast.filter(desaturator.filter(grayFilter.filter(image, null), null), null);
+	}
+
+	/**
+	 * @return the icon as a <code>TYPE_INT_ARGB</code> image, like the
+	 *         renderer produces it
+	 */
+	private static BufferedImage readIcon(String path) throws IOException {
+		File file = new File(PNG_DIRECTORY, path);
+		assertTrue(file.isFile(), "missing icon " + file);
+
+		BufferedImage image = ImageIO.read(file);
+		assertNotNull(image, "unreadable icon " + file);
+		return copy(image);
+	}
+
+	private static BufferedImage copy(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		copy.setRGB(0, 0, width, height, image.getRGB(0, 0, width, height, null, 0, width), 0, width);
+		return copy;
+	}
+
+	/**
+	 * @return an image containing every RGB value once, with varying alpha
+	 */
+	private static BufferedImage createAllColors() {
+		BufferedImage image = new BufferedImage(4096, 4096, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = pixels(image);
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = ((i * 37) & 0xff) << 24 | i;
+		}
+		return image;
+	}
+
+	private static int[] pixels(BufferedImage image) {
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+	}
+}